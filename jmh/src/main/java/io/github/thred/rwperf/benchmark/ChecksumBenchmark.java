@@ -0,0 +1,75 @@
+package io.github.thred.rwperf.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+
+/**
+ * The costs of the checksums per buffer, as added to each transfer. The heap variant is used by the stream engine,
+ * the direct variant by the channel, mapped and async engines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChecksumBenchmark
+{
+
+    @Param({Checksum.SHA1, Checksum.CRC32C, Checksum.XXHASH64, Checksum.NONE})
+    private String algorithm;
+
+    @Param({"4096", "65536", "1048576"})
+    private int bufferSize;
+
+    private byte[] bytes;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup()
+    {
+        bytes = new byte[bufferSize];
+
+        new Generator(0).fill(bytes);
+
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.put(bytes);
+    }
+
+    @Benchmark
+    public String heap()
+    {
+        Checksum checksum = Checksum.create(algorithm);
+
+        checksum.update(bytes, 0, bytes.length);
+
+        return checksum.complete();
+    }
+
+    @Benchmark
+    public String direct()
+    {
+        Checksum checksum = Checksum.create(algorithm);
+
+        buffer.clear();
+        checksum.update(buffer);
+
+        return checksum.complete();
+    }
+
+}
@@ -0,0 +1,146 @@
+package io.github.thred.rwperf.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.thred.rwperf.engine.AsyncEngine;
+import io.github.thred.rwperf.engine.BlockFile;
+import io.github.thred.rwperf.engine.ChannelEngine;
+import io.github.thred.rwperf.engine.Engine;
+import io.github.thred.rwperf.engine.MappedEngine;
+import io.github.thred.rwperf.engine.StreamEngine;
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+import io.github.thred.rwperf.util.Sync;
+
+/**
+ * The costs of the engines, without checksum and sync. The files are small and recently written, thus they are served
+ * by the page cache and the results show the overhead of the engine rather than the speed of the device. Set the
+ * java.io.tmpdir system property to benchmark another file system.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark
+{
+
+    private static final long MAP_SIZE = 64 * 1024 * 1024;
+
+    @Param({StreamEngine.NAME, ChannelEngine.NAME, MappedEngine.NAME, AsyncEngine.NAME})
+    private String engineName;
+
+    @Param({"4096", "65536"})
+    private int blockSize;
+
+    @Param({"1048576"})
+    private long fileSize;
+
+    private File directory;
+    private File writeFile;
+    private File readFile;
+    private Engine engine;
+    private Generator generator;
+    private Sync sync;
+    private BlockFile blockFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        directory = Files.createTempDirectory("rwperf-jmh").toFile();
+        writeFile = new File(directory, "write.tmp");
+        readFile = new File(directory, "read.tmp");
+        engine = create();
+        generator = new Generator(0);
+        sync = new Sync(Sync.NONE, 0, null);
+
+        engine.write(readFile, generator, fileSize, Checksum.create(Checksum.NONE), sync);
+
+        blockFile = engine.open(readFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        blockFile.close();
+
+        writeFile.delete();
+        readFile.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public File write() throws IOException
+    {
+        engine.write(writeFile, generator, fileSize, Checksum.create(Checksum.NONE), sync);
+
+        return writeFile;
+    }
+
+    @Benchmark
+    public long read() throws IOException
+    {
+        return engine.read(readFile, Checksum.create(Checksum.NONE));
+    }
+
+    @Benchmark
+    public BlockFile blockRead() throws IOException
+    {
+        long position = ThreadLocalRandom.current().nextLong(fileSize / blockSize) * blockSize;
+
+        blockFile.read(position, blockSize, Checksum.create(Checksum.NONE));
+
+        return blockFile;
+    }
+
+    @Benchmark
+    public BlockFile blockWrite() throws IOException
+    {
+        long position = ThreadLocalRandom.current().nextLong(fileSize / blockSize) * blockSize;
+
+        blockFile.write(position, blockSize, generator, Checksum.create(Checksum.NONE), sync);
+
+        return blockFile;
+    }
+
+    private Engine create()
+    {
+        switch (engineName)
+        {
+            case StreamEngine.NAME:
+                return new StreamEngine(blockSize);
+
+            case ChannelEngine.NAME:
+                return new ChannelEngine(blockSize);
+
+            case MappedEngine.NAME:
+                return new MappedEngine(blockSize, MAP_SIZE);
+
+            case AsyncEngine.NAME:
+                return new AsyncEngine(blockSize, 1);
+
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engineName);
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package io.github.thred.rwperf.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.thred.rwperf.util.Generator;
+
+/**
+ * The costs of generating the content of a buffer. {@link Random#nextBytes(byte[])} is the former source of the
+ * content and serves as reference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneratorBenchmark
+{
+
+    @Param({"4096", "65536", "1048576"})
+    private int bufferSize;
+
+    private byte[] bytes;
+    private Generator generator;
+    private Random random;
+
+    @Setup
+    public void setup()
+    {
+        bytes = new byte[bufferSize];
+        generator = new Generator(0);
+        random = new Random(0);
+    }
+
+    @Benchmark
+    public byte[] generator()
+    {
+        generator.fill(bytes);
+
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] random()
+    {
+        random.nextBytes(bytes);
+
+        return bytes;
+    }
+
+}
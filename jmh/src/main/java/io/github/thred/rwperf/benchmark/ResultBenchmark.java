@@ -0,0 +1,94 @@
+package io.github.thred.rwperf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.thred.rwperf.Operation;
+import io.github.thred.rwperf.Result;
+import io.github.thred.rwperf.ResultConsumer;
+import io.github.thred.rwperf.SnapshotResultConsumer;
+import io.github.thred.rwperf.Statistics;
+
+/**
+ * The costs of passing results from a subprocess to the main process: encoding and decoding the snapshot of the
+ * statistics and passing the snapshot line through the consumer of the main process.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultBenchmark
+{
+
+    private static final int RESULTS = 1000;
+
+    private Statistics statistics;
+    private String snapshot;
+    private String line;
+
+    @Setup
+    public void setup()
+    {
+        statistics = new Statistics();
+
+        for (int i = 0; i < RESULTS; i++)
+        {
+            statistics
+                .consume(new Result("rwperf-" + i, 0, Operation.values()[i % Operation.values().length], 1048576,
+                    "crc32c", "6c3e9a2b", 0.001 + i * 0.000001, true));
+        }
+
+        snapshot = statistics.encode();
+        line = SnapshotResultConsumer.PREFIX + " | 0 | " + snapshot;
+    }
+
+    @Benchmark
+    public String encode()
+    {
+        return statistics.encode();
+    }
+
+    @Benchmark
+    public Statistics decode()
+    {
+        return Statistics.decode(snapshot);
+    }
+
+    /**
+     * The path of a snapshot line through the consumer of the main process, including the prefix checks.
+     */
+    @Benchmark
+    public void consume(Blackhole blackhole)
+    {
+        ResultConsumer consumer = new ResultConsumer()
+        {
+            @Override
+            public void consume(Result result)
+            {
+                blackhole.consume(result);
+            }
+
+            @Override
+            public void consume(int path, Statistics statistics)
+            {
+                blackhole.consume(statistics);
+            }
+        };
+
+        consumer.consume(line);
+    }
+
+}
@@ -0,0 +1,254 @@
+package io.github.thred.rwperf;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aggregates results without blocking the threads. The results are consumed into a fixed number of slots, each with
+ * its own {@link Statistics} per path and {@link TimeSeries}, that are merged when the results are collected. Like the
+ * cells of a {@link java.util.concurrent.atomic.LongAdder}, a slot is claimed by a compare-and-set, not by a lock: a
+ * thread starts at the slot of its id and moves on to the next slot, if the slot is in use by another thread or by a
+ * collection. Virtual threads, that are started per task, do not add slots.
+ */
+public class Accumulator
+{
+
+    private static class Slot
+    {
+        private final AtomicBoolean busy = new AtomicBoolean();
+
+        private Statistics[] statistics;
+        private TimeSeries timeSeries;
+    }
+
+    private final Slot[] slots = new Slot[Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8)];
+    private final int paths;
+    private final long interval;
+    private final long startNanos;
+
+    /**
+     * Creates an accumulator.
+     *
+     * @param interval the interval of the time series in nanoseconds, 0 to disable the time series
+     * @param paths the number of paths, as referenced by {@link Result#getPath()}
+     */
+    public Accumulator(long interval, int paths)
+    {
+        super();
+
+        this.interval = interval;
+        this.paths = paths;
+
+        startNanos = System.nanoTime();
+
+        for (int i = 0; i < slots.length; i++)
+        {
+            slots[i] = new Slot();
+            slots[i].statistics = create();
+
+            if (interval > 0)
+            {
+                slots[i].timeSeries = new TimeSeries(interval, startNanos);
+            }
+        }
+    }
+
+    public void consume(Result result)
+    {
+        Slot slot = claim();
+
+        try
+        {
+            if (interval > 0)
+            {
+                slot.timeSeries.record(result.getOperation(), result.getSize(), System.nanoTime());
+            }
+
+            slot.statistics[result.getPath()].consume(result);
+        }
+        finally
+        {
+            slot.busy.set(false);
+        }
+    }
+
+    public void consume(int path, Statistics statistics)
+    {
+        Slot slot = claim();
+
+        try
+        {
+            if (interval > 0)
+            {
+                slot.timeSeries.record(statistics, System.nanoTime());
+            }
+
+            slot.statistics[path].add(statistics);
+        }
+        finally
+        {
+            slot.busy.set(false);
+        }
+    }
+
+    /**
+     * Returns the merged statistics of all threads and paths. The statistics of the threads are kept.
+     *
+     * @return the statistics
+     */
+    public Statistics collect()
+    {
+        Statistics statistics = new Statistics();
+
+        for (Statistics current : collectPaths())
+        {
+            statistics.add(current);
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Returns the merged statistics of all threads, one per path. The statistics of the threads are kept.
+     *
+     * @return the statistics, indexed by path
+     */
+    public Statistics[] collectPaths()
+    {
+        Statistics[] statistics = create();
+
+        for (Slot slot : slots)
+        {
+            claim(slot);
+
+            try
+            {
+                add(statistics, slot.statistics);
+            }
+            finally
+            {
+                slot.busy.set(false);
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Returns the merged statistics of all threads since the last call, one per path, and resets the statistics of
+     * the threads. Merging happens after the slots have been swapped, thus the slots are claimed only for a moment.
+     *
+     * @return the statistics, indexed by path
+     */
+    public Statistics[] drain()
+    {
+        Statistics[] statistics = create();
+
+        for (Slot slot : slots)
+        {
+            Statistics[] current;
+
+            claim(slot);
+
+            try
+            {
+                current = slot.statistics;
+                slot.statistics = create();
+            }
+            finally
+            {
+                slot.busy.set(false);
+            }
+
+            add(statistics, current);
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Returns the merged time series of all threads.
+     *
+     * @return the time series, null if disabled
+     */
+    public TimeSeries collectTimeSeries()
+    {
+        if (interval <= 0)
+        {
+            return null;
+        }
+
+        TimeSeries timeSeries = new TimeSeries(interval, startNanos);
+
+        for (Slot slot : slots)
+        {
+            claim(slot);
+
+            try
+            {
+                timeSeries.add(slot.timeSeries);
+            }
+            finally
+            {
+                slot.busy.set(false);
+            }
+        }
+
+        return timeSeries;
+    }
+
+    /**
+     * Claims a free slot for the current thread, starting at the slot of its id. There are more slots than threads
+     * can run at once, thus a thread spins only if all slots are claimed by threads, that have been preempted.
+     */
+    private Slot claim()
+    {
+        int index = (int) Thread.currentThread().getId();
+
+        for (int attempt = 1;; attempt++, index++)
+        {
+            Slot slot = slots[index & slots.length - 1];
+
+            if (!slot.busy.get() && slot.busy.compareAndSet(false, true))
+            {
+                return slot;
+            }
+
+            if (attempt % slots.length == 0)
+            {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Claims the slot for collecting, waiting for the thread using it.
+     */
+    private static void claim(Slot slot)
+    {
+        while (!slot.busy.compareAndSet(false, true))
+        {
+            Thread.onSpinWait();
+        }
+    }
+
+    private Statistics[] create()
+    {
+        Statistics[] statistics = new Statistics[paths];
+
+        for (int i = 0; i < paths; i++)
+        {
+            statistics[i] = new Statistics();
+        }
+
+        return statistics;
+    }
+
+    private static void add(Statistics[] statistics, Statistics[] other)
+    {
+        for (int i = 0; i < statistics.length; i++)
+        {
+            statistics[i].add(other[i]);
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
-package io.github.thred.rwperf;
-
-public class Actions
-{
-
-    
-}
+package io.github.thred.rwperf;
+
+public class Actions
+{
+
+    
+}
@@ -0,0 +1,171 @@
+package io.github.thred.rwperf;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.thred.rwperf.util.InputHandler;
+
+/**
+ * Runs workloads on behalf of a coordinator. The agent listens on a TCP port and handles one coordinator at a time.
+ *
+ * The coordinator sends a line "RUN | n" followed by n lines with the arguments of the workload, including the start
+ * time. The agent starts a subprocess with these arguments and forwards its output line by line, like a local
+ * subprocess does through its stdout: snapshots of the aggregated statistics and other messages. Lines of the error
+ * stream are prefixed with "ERROR | ". The last line is "EXIT | code" with the exit code of the subprocess. An invalid
+ * request is answered with an error line and "EXIT | -1".
+ *
+ * The agent runs the workload of any coordinator that connects, thus it must only be reachable from a trusted network.
+ * The bind address limits the interface the agent listens on.
+ */
+public class Agent
+{
+
+    public static final String RUN = "RUN";
+    public static final String ERROR = "ERROR";
+    public static final String EXIT = "EXIT";
+
+    private static final int MAX_ARGUMENTS = 1024;
+
+    private final InetAddress bindAddress;
+    private final int port;
+
+    /**
+     * Creates an agent.
+     *
+     * @param bindAddress the address to listen on, null for all interfaces
+     * @param port the port
+     */
+    public Agent(InetAddress bindAddress, int port)
+    {
+        super();
+
+        this.bindAddress = bindAddress;
+        this.port = port;
+    }
+
+    /**
+     * Accepts coordinators until the process gets terminated.
+     *
+     * @throws IOException if the port cannot be opened
+     */
+    public void run() throws IOException
+    {
+        try (ServerSocket serverSocket = new ServerSocket(port, 0, bindAddress))
+        {
+            System.out
+                .println("Agent listening on " + serverSocket.getInetAddress().getHostAddress() + ":"
+                    + serverSocket.getLocalPort() + "...");
+
+            while (true)
+            {
+                try (Socket socket = serverSocket.accept())
+                {
+                    handle(socket);
+                }
+                catch (IOException e)
+                {
+                    e.printStackTrace(System.err);
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException
+    {
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        PrintWriter writer =
+            new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+
+        // a failed request must not stop the agent, the coordinator gets the error instead
+        try
+        {
+            handle(socket, reader, writer);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            e.printStackTrace(System.err);
+
+            writer.println(ERROR + " | " + e);
+            writer.println(EXIT + " | -1");
+        }
+    }
+
+    private void handle(Socket socket, BufferedReader reader, PrintWriter writer) throws IOException
+    {
+        List<String> arguments = readRequest(socket, reader);
+
+        System.out.println("Running workload of " + socket.getRemoteSocketAddress() + "...");
+
+        Process process = new ProcessBuilder(RWPerf.command(arguments)).start();
+
+        // the print writer synchronizes the lines of both streams
+        InputHandler errors =
+            InputHandler.handle(process.getErrorStream(), error -> writer.println(ERROR + " | " + error));
+        InputHandler output = InputHandler.handle(process.getInputStream(), writer::println);
+
+        try
+        {
+            process.waitFor();
+
+            errors.await();
+            output.await();
+        }
+        catch (InterruptedException e)
+        {
+            e.printStackTrace(System.err);
+        }
+
+        writer.println(EXIT + " | " + process.exitValue());
+
+        System.out.println("Workload finished with result code " + process.exitValue());
+    }
+
+    /**
+     * Reads the header "RUN | n" and the n arguments.
+     */
+    private static List<String> readRequest(Socket socket, BufferedReader reader) throws IOException
+    {
+        String line = reader.readLine();
+        String[] chunks = line != null ? line.split("\\|", -1) : new String[0];
+
+        if (chunks.length != 2 || !RUN.equals(chunks[0].trim()) || !chunks[1].trim().matches("\\d{1,4}"))
+        {
+            throw new IOException("Unexpected request from " + socket.getRemoteSocketAddress() + ": " + line);
+        }
+
+        int count = Integer.parseInt(chunks[1].trim());
+
+        if (count > MAX_ARGUMENTS)
+        {
+            throw new IOException("Too many arguments: " + count + ">" + MAX_ARGUMENTS);
+        }
+
+        List<String> arguments = new ArrayList<>();
+
+        for (int i = 0; i < count; i++)
+        {
+            String argument = reader.readLine();
+
+            if (argument == null)
+            {
+                throw new IOException("Incomplete request from " + socket.getRemoteSocketAddress() + ", expected "
+                    + count + " arguments, got " + i);
+            }
+
+            arguments.add(argument);
+        }
+
+        return arguments;
+    }
+
+}
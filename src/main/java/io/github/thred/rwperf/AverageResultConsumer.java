@@ -1,139 +1,295 @@
-package io.github.thred.rwperf;
-
-import java.io.File;
-import java.util.List;
-
-public class AverageResultConsumer implements ResultConsumer
-{
-
-    private class Average
-    {
-        private final Operation operation;
-
-        private long size = 0;
-        private int count = 0;
-        private double duration = 0;
-
-        public Average(Operation operation)
-        {
-            super();
-
-            this.operation = operation;
-        }
-
-        public void consume(Result result)
-        {
-            size += result.getSize();
-            count++;
-            duration += result.getDuration();
-        }
-
-        @Override
-        public String toString()
-        {
-            long result = (long) (size / duration);
-            String op = operation.toString() + " avg:";
-
-            return String.format("%-16s%s/s", op, RWPerf.formatSize(result));
-        }
-    }
-
-    private final Average writeAverage = new Average(Operation.Write);
-    private final Average readAverage = new Average(Operation.Read);
-    private final Average deleteAverage = new Average(Operation.Delete);
-
-    private final long size;
-    private final long minSize;
-    private final long maxSize;
-    private final int processes;
-    private final int threads;
-    private final long seed;
-    private final boolean keep;
-    private final List<File> paths;
-
-    public AverageResultConsumer(long size, long minSize, long maxSize, int processes, int threads, long seed,
-        boolean keep, List<File> paths)
-    {
-        super();
-
-        this.size = size;
-        this.minSize = minSize;
-        this.maxSize = maxSize;
-        this.processes = processes;
-        this.threads = threads;
-        this.seed = seed;
-        this.keep = keep;
-        this.paths = paths;
-    }
-
-    @Override
-    public void consume(Result result)
-    {
-        switch (result.getOperation())
-        {
-            case Write:
-                writeAverage.consume(result);
-                break;
-
-            case Read:
-                readAverage.consume(result);
-                break;
-
-            case Delete:
-                deleteAverage.consume(result);
-                break;
-
-            default:
-                throw new UnsupportedOperationException("Operation not supported: " + result.getOperation());
-        }
-    }
-
-    @Override
-    public String toString()
-    {
-        StringBuilder builder = new StringBuilder();
-
-        builder.append("RWPerf Results\n");
-        builder.append("==============\n");
-        builder.append("\n");
-        builder.append("Total size:     ").append(RWPerf.formatSize(size)).append("\n");
-        builder.append("Min file size:  ").append(RWPerf.formatSize(minSize)).append("\n");
-        builder.append("Max file size:  ").append(RWPerf.formatSize(maxSize)).append("\n");
-        builder.append("\n");
-        builder.append("Processes:      ").append(processes).append("\n");
-        builder.append("Threads:        ").append(threads).append("\n");
-        builder.append("Seed:           ").append(seed).append("\n");
-        builder.append("Delete files:   ").append(!keep).append("\n");
-        builder.append("\n");
-        builder.append("Paths:          ");
-
-        boolean first = true;
-
-        for (File path : paths)
-        {
-            if (!first)
-            {
-                builder.append("                ");
-            }
-            else
-            {
-                first = false;
-            }
-
-            builder.append(path.getAbsolutePath()).append("\n");
-        }
-
-        builder.append("\n");
-        builder.append("Written:        ").append(writeAverage.count).append(" files\n");
-        builder.append("Read:           ").append(readAverage.count).append(" files\n");
-        builder.append("Deleted:        ").append(deleteAverage.count).append(" files\n");
-
-        builder.append("\n");
-        builder.append(writeAverage).append("\n");
-        builder.append(readAverage).append("\n");
-        builder.append(deleteAverage).append("\n");
-
-        return builder.toString();
-    }
-
-}
+package io.github.thred.rwperf;
+
+import java.io.File;
+
+import io.github.thred.rwperf.Statistics.Average;
+import io.github.thred.rwperf.engine.AsyncEngine;
+import io.github.thred.rwperf.engine.MappedEngine;
+
+public class AverageResultConsumer implements ResultConsumer
+{
+
+    private static final String PERCENTILES_FORMAT = "%-12s%11s%11s%11s%11s%11s%11s";
+
+    private final Configuration configuration;
+    private final Accumulator accumulator;
+
+    public AverageResultConsumer(Configuration configuration)
+    {
+        super();
+
+        this.configuration = configuration;
+
+        accumulator = new Accumulator(configuration.getInterval(), configuration.getPaths().size());
+    }
+
+    @Override
+    public void consume(Result result)
+    {
+        accumulator.consume(result);
+    }
+
+    /**
+     * Merges a snapshot of a subprocess. Snapshots arrive on the threads reading the output of the subprocesses.
+     */
+    @Override
+    public void consume(int path, Statistics snapshot)
+    {
+        accumulator.consume(path, snapshot);
+    }
+
+    /**
+     * Returns the merged statistics of all results consumed so far.
+     *
+     * @return the statistics
+     */
+    public Statistics getStatistics()
+    {
+        return accumulator.collect();
+    }
+
+    /**
+     * Returns the merged statistics of all results consumed so far, one per path.
+     *
+     * @return the statistics, indexed by path
+     */
+    public Statistics[] getPathStatistics()
+    {
+        return accumulator.collectPaths();
+    }
+
+    @Override
+    public String toString()
+    {
+        Statistics statistics = accumulator.collect();
+        TimeSeries timeSeries = accumulator.collectTimeSeries();
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("RWPerf Results\n");
+        builder.append("==============\n");
+        builder.append("\n");
+        builder.append("Total size:     ").append(RWPerf.formatSize(configuration.getSize())).append("\n");
+        builder.append("Min file size:  ").append(RWPerf.formatSize(configuration.getMinSize())).append("\n");
+        builder.append("Max file size:  ").append(RWPerf.formatSize(configuration.getMaxSize())).append("\n");
+        builder.append("\n");
+        builder.append("Processes:      ").append(configuration.getProcesses()).append("\n");
+
+        if (!configuration.getAgents().isEmpty())
+        {
+            builder.append("Agents:         ").append(String.join(", ", configuration.getAgents())).append("\n");
+        }
+
+        builder
+            .append("Threads:        ")
+            .append(configuration.getThreads())
+            .append(configuration.isVirtual() ? " (virtual)" : "")
+            .append("\n");
+        builder.append("Seed:           ").append(configuration.getSeed()).append("\n");
+        builder.append("Delete files:   ").append(!configuration.isKeep()).append("\n");
+        builder.append("\n");
+        builder.append("Engine:         ").append(configuration.getEngine()).append("\n");
+        builder.append("Block size:     ").append(RWPerf.formatSize(configuration.getBlockSize())).append("\n");
+        builder.append("Direct I/O:     ").append(configuration.isDirect()).append("\n");
+        builder
+            .append("Layout:         ")
+            .append(new Layout(configuration.getDepth(), configuration.getFanOut(), 0))
+            .append("\n");
+        builder.append("Checksum:       ").append(configuration.getChecksum()).append("\n");
+        builder.append("Sync:           ").append(configuration.getSync());
+
+        if (configuration.getSyncEvery() > 0)
+        {
+            builder.append(" every ").append(RWPerf.formatSize(configuration.getSyncEvery()));
+        }
+
+        builder.append("\n");
+
+        if (MappedEngine.NAME.equals(configuration.getEngine()))
+        {
+            builder.append("Map size:       ").append(RWPerf.formatSize(configuration.getMapSize())).append("\n");
+        }
+
+        if (AsyncEngine.NAME.equals(configuration.getEngine()))
+        {
+            builder.append("I/O depth:      ").append(configuration.getIoDepth()).append("\n");
+        }
+
+        builder.append("\n");
+        builder.append("Workload:       ").append(configuration.getWorkload()).append("\n");
+
+        if (configuration.getWorkload() == Workload.Random)
+        {
+            builder.append("I/O size:       ").append(RWPerf.formatSize(configuration.getIoSize())).append("\n");
+        }
+
+        if (configuration.getWorkload() == Workload.Mixed)
+        {
+            builder
+                .append("Mix:            ")
+                .append(configuration.getReadPercent())
+                .append(":")
+                .append(100 - configuration.getReadPercent())
+                .append(" (read:write)\n");
+        }
+
+        builder
+            .append("Duration:       ")
+            .append(configuration.getDuration() > 0 ? RWPerf.formatDuration(configuration.getDuration()) : "none")
+            .append("\n");
+        builder
+            .append("Warmup:         ")
+            .append(configuration.getWarmup() > 0 ? RWPerf.formatDuration(configuration.getWarmup()) : "none")
+            .append("\n");
+        builder
+            .append("Interval:       ")
+            .append(configuration.getInterval() > 0 ? RWPerf.formatDuration(configuration.getInterval()) : "none")
+            .append("\n");
+        builder.append("\n");
+        builder.append("Paths:          ");
+
+        boolean first = true;
+
+        for (File path : configuration.getPaths())
+        {
+            if (!first)
+            {
+                builder.append("                ");
+            }
+            else
+            {
+                first = false;
+            }
+
+            builder.append(path.getAbsolutePath()).append("\n");
+        }
+
+        builder.append("\n");
+        builder.append("Written:        ").append(statistics.get(Operation.Write).getCount()).append(" files\n");
+        builder.append("Read:           ").append(statistics.get(Operation.Read).getCount()).append(" files\n");
+        builder.append("Deleted:        ").append(statistics.get(Operation.Delete).getCount()).append(" files\n");
+
+        if (statistics.get(Operation.RandomWrite).getCount() > 0 || statistics.get(Operation.RandomRead).getCount() > 0)
+        {
+            builder
+                .append("Random writes:  ")
+                .append(statistics.get(Operation.RandomWrite).getCount())
+                .append(" blocks\n");
+            builder
+                .append("Random reads:   ")
+                .append(statistics.get(Operation.RandomRead).getCount())
+                .append(" blocks\n");
+        }
+
+        if (statistics.get(Operation.MixedWrite).getCount() > 0 || statistics.get(Operation.MixedRead).getCount() > 0)
+        {
+            builder
+                .append("Mixed writes:   ")
+                .append(statistics.get(Operation.MixedWrite).getCount())
+                .append(" files\n");
+            builder
+                .append("Mixed reads:    ")
+                .append(statistics.get(Operation.MixedRead).getCount())
+                .append(" files\n");
+        }
+
+        if (statistics.get(Operation.Create).getCount() > 0)
+        {
+            builder.append("Created:        ").append(statistics.get(Operation.Create).getCount()).append(" files\n");
+            builder.append("Renamed:        ").append(statistics.get(Operation.Rename).getCount()).append(" files\n");
+            builder.append("Moved:          ").append(statistics.get(Operation.Move).getCount()).append(" files\n");
+        }
+
+        if (statistics.get(Operation.Mkdir).getCount() > 0)
+        {
+            builder.append("Directories:    ").append(statistics.get(Operation.Mkdir).getCount()).append("\n");
+        }
+
+        long failures = 0;
+
+        for (Average average : statistics.getAverages())
+        {
+            failures += average.getFailures();
+        }
+
+        if (failures > 0)
+        {
+            builder.append("Failures:       ").append(failures).append("\n");
+        }
+
+        builder.append("\n");
+        appendAverages(builder, statistics);
+
+        boolean transfers = false;
+
+        for (Average average : statistics.getAverages())
+        {
+            // metadata operations do not transfer any bytes
+            transfers |= average.getSize() > 0;
+        }
+
+        if (transfers)
+        {
+            builder.append("\n");
+            builder
+                .append(String.format(PERCENTILES_FORMAT, "Per file", "min", "p50", "p90", "p99", "p99.9", "max"))
+                .append("\n");
+
+            for (Average average : statistics.getAverages())
+            {
+                if (average.getCount() > 0 && average.getSize() > 0)
+                {
+                    builder.append(average.toThroughputString(PERCENTILES_FORMAT)).append("\n");
+                }
+            }
+        }
+
+        if (configuration.getPaths().size() > 1)
+        {
+            Statistics[] paths = accumulator.collectPaths();
+
+            for (int i = 0; i < paths.length; i++)
+            {
+                builder.append("\n");
+                builder
+                    .append("Path:           ")
+                    .append(configuration.getPaths().get(i).getAbsolutePath())
+                    .append("\n");
+                builder.append("\n");
+                appendAverages(builder, paths[i]);
+            }
+        }
+
+        if (timeSeries != null)
+        {
+            builder.append("\n");
+            builder.append(timeSeries);
+        }
+
+        return builder.toString();
+    }
+
+    private static void appendAverages(StringBuilder builder, Statistics statistics)
+    {
+        for (Average average : statistics.getAverages())
+        {
+            if (average.getCount() > 0)
+            {
+                builder.append(average).append("\n");
+            }
+        }
+
+        builder.append("\n");
+        builder
+            .append(String.format(PERCENTILES_FORMAT, "Latency", "min", "p50", "p90", "p99", "p99.9", "max"))
+            .append("\n");
+
+        for (Average average : statistics.getAverages())
+        {
+            if (average.getCount() > 0)
+            {
+                builder.append(average.toLatencyString(PERCENTILES_FORMAT)).append("\n");
+            }
+        }
+    }
+
+}
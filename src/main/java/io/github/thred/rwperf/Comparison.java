@@ -0,0 +1,323 @@
+package io.github.thred.rwperf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.thred.rwperf.util.WelchTest;
+
+/**
+ * Compares the totals of two JSON reports, a baseline and a candidate, operation by operation. Each run of a report is
+ * one sample, e.g. one iteration. A metric regresses, if it got worse by more than the threshold and, if both reports
+ * have at least two runs, the difference is significant by Welch's t-test. With a single run there is no test, the
+ * threshold alone decides.
+ *
+ * The metrics are the total throughput (op/s for operations without transfers), the median and the p99 latency.
+ */
+public class Comparison
+{
+
+    private static final double ALPHA = 0.05;
+    private static final String FORMAT = "%-12s%-14s%14s%14s%10s%9s  %s\n";
+
+    private enum Metric
+    {
+        Throughput("throughput", false),
+        Median("p50 latency", true),
+        Tail("p99 latency", true);
+
+        private final String label;
+        private final boolean lowerIsBetter;
+
+        Metric(String label, boolean lowerIsBetter)
+        {
+            this.label = label;
+            this.lowerIsBetter = lowerIsBetter;
+        }
+    }
+
+    private static class Row
+    {
+        private final String operation;
+        private final Metric metric;
+        private final boolean transfers;
+        private final double baseline;
+        private final double candidate;
+        private final double delta;
+        private final double p;
+        private final boolean regression;
+
+        Row(String operation, Metric metric, boolean transfers, double[] baseline, double[] candidate,
+            double threshold)
+        {
+            super();
+
+            this.operation = operation;
+            this.metric = metric;
+            this.transfers = transfers;
+            this.baseline = WelchTest.mean(baseline);
+            this.candidate = WelchTest.mean(candidate);
+
+            delta = this.baseline != 0 ? (this.candidate - this.baseline) / this.baseline : 0;
+            p = WelchTest.isApplicable(baseline, candidate) ? WelchTest.pValue(baseline, candidate) : Double.NaN;
+
+            double worse = metric.lowerIsBetter ? delta : -delta;
+
+            regression = worse > threshold && (Double.isNaN(p) || p < ALPHA);
+        }
+
+        private String format(double value)
+        {
+            if (metric.lowerIsBetter)
+            {
+                return RWPerf.formatDuration((long) value);
+            }
+
+            return transfers ? RWPerf.formatSize((long) value) + "/s" : String.format("%,.1f op/s", value);
+        }
+    }
+
+    private final String baselineName;
+    private final String candidateName;
+    private final int baselineRuns;
+    private final int candidateRuns;
+    private final double threshold;
+    private final Map<String, String> differences = new LinkedHashMap<>();
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * Compares two reports.
+     *
+     * @param baselineName the name of the baseline, e.g. the file
+     * @param baseline the baseline, as parsed from a JSON report
+     * @param candidateName the name of the candidate
+     * @param candidate the candidate, as parsed from a JSON report
+     * @param threshold the relative change, that is considered a regression, e.g. 0.05
+     * @throws IllegalArgumentException if a report is invalid
+     */
+    public Comparison(String baselineName, Map<String, Object> baseline, String candidateName,
+        Map<String, Object> candidate, double threshold)
+    {
+        super();
+
+        this.baselineName = baselineName;
+        this.candidateName = candidateName;
+        this.threshold = threshold;
+
+        Map<String, Object> baselineConfiguration = map(baseline.get("configuration"));
+        Map<String, Object> candidateConfiguration = map(candidate.get("configuration"));
+
+        for (Map.Entry<String, Object> entry : candidateConfiguration.entrySet())
+        {
+            Object value = baselineConfiguration.get(entry.getKey());
+
+            // parsed numbers are longs, thus compare the strings
+            if (!String.valueOf(value).equals(String.valueOf(entry.getValue())))
+            {
+                differences.put(entry.getKey(), value + " -> " + entry.getValue());
+            }
+        }
+
+        List<Map<String, Object>> baselineOperations = operations(baseline);
+        List<Map<String, Object>> candidateOperations = operations(candidate);
+
+        baselineRuns = list(baseline.get("runs")).size();
+        candidateRuns = list(candidate.get("runs")).size();
+
+        if (baselineRuns == 0 || candidateRuns == 0)
+        {
+            throw new IllegalArgumentException(
+                "Invalid report, expected at least one run: " + (baselineRuns == 0 ? baselineName : candidateName));
+        }
+
+        for (String operation : names(candidateOperations))
+        {
+            if (!names(baselineOperations).contains(operation))
+            {
+                continue;
+            }
+
+            double[] bytes = samples(candidateOperations, operation, "bytes");
+
+            if (bytes.length == 0)
+            {
+                throw new IllegalArgumentException(
+                    "Invalid report, expected the bytes of " + operation + ": " + candidateName);
+            }
+
+            boolean transfers = bytes[0] > 0;
+
+            for (Metric metric : Metric.values())
+            {
+                String key = key(metric, transfers);
+                double[] baselineSamples = samples(baselineOperations, operation, key);
+                double[] candidateSamples = samples(candidateOperations, operation, key);
+
+                if (baselineSamples.length > 0 && candidateSamples.length > 0)
+                {
+                    rows.add(new Row(operation, metric, transfers, baselineSamples, candidateSamples, threshold));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if any metric of any operation regressed.
+     *
+     * @return true on regression
+     */
+    public boolean isRegression()
+    {
+        return rows.stream().anyMatch(row -> row.regression);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("RWPerf Comparison\n");
+        builder.append("=================\n");
+        builder.append("\n");
+        builder.append("Baseline:       ").append(baselineName).append(", ").append(baselineRuns).append(" runs\n");
+        builder.append("Candidate:      ").append(candidateName).append(", ").append(candidateRuns).append(" runs\n");
+        builder.append("Threshold:      ").append(String.format("%.1f %%", threshold * 100)).append("\n");
+
+        if (baselineRuns < 2 || candidateRuns < 2)
+        {
+            builder.append("                no significance test, it needs at least 2 runs each\n");
+        }
+
+        if (!differences.isEmpty())
+        {
+            builder.append("\n");
+
+            boolean first = true;
+
+            for (Map.Entry<String, String> entry : differences.entrySet())
+            {
+                builder.append(first ? "Differences:    " : "                ");
+                builder.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+
+                first = false;
+            }
+        }
+
+        builder.append("\n");
+        builder.append(String.format(FORMAT, "Operation", "Metric", "Baseline", "Candidate", "Delta", "p", ""));
+
+        for (Row row : rows)
+        {
+            builder
+                .append(String
+                    .format(FORMAT, row.operation, row.metric.label, row.format(row.baseline),
+                        row.format(row.candidate), String.format("%+.1f %%", row.delta * 100),
+                        Double.isNaN(row.p) ? "-" : String.format("%.3f", row.p), row.regression ? "REGRESSION" : ""));
+        }
+
+        long regressions = rows.stream().filter(row -> row.regression).count();
+
+        builder.append("\n");
+        builder
+            .append(regressions > 0 ? regressions + " regressions beyond the threshold." : "No regression.")
+            .append("\n");
+
+        return builder.toString();
+    }
+
+    private static String key(Metric metric, boolean transfers)
+    {
+        switch (metric)
+        {
+            case Median:
+                return "latency.p50";
+
+            case Tail:
+                return "latency.p99";
+
+            default:
+                return transfers ? "totalThroughput" : "totalOpsPerSecond";
+        }
+    }
+
+    /**
+     * Returns the total operations of all runs.
+     */
+    private static List<Map<String, Object>> operations(Map<String, Object> document)
+    {
+        List<Map<String, Object>> operations = new ArrayList<>();
+
+        for (Object run : list(document.get("runs")))
+        {
+            for (Object operation : list(map(run).get("operations")))
+            {
+                operations.add(map(operation));
+            }
+        }
+
+        return operations;
+    }
+
+    private static List<String> names(List<Map<String, Object>> operations)
+    {
+        List<String> names = new ArrayList<>();
+
+        for (Map<String, Object> operation : operations)
+        {
+            String name = String.valueOf(operation.get("operation"));
+
+            if (!names.contains(name))
+            {
+                names.add(name);
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the values of the key of the operation, one per run. Keys with dots reference nested values.
+     */
+    private static double[] samples(List<Map<String, Object>> operations, String operation, String key)
+    {
+        return operations
+            .stream()
+            .filter(map -> operation.equals(map.get("operation")))
+            .map(map -> {
+                Object value = map;
+
+                for (String part : key.split("\\.", 2))
+                {
+                    value = map(value).get(part);
+                }
+
+                return value;
+            })
+            .filter(value -> value instanceof Number)
+            .mapToDouble(value -> ((Number) value).doubleValue())
+            .toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value)
+    {
+        if (!(value instanceof Map))
+        {
+            throw new IllegalArgumentException("Invalid report, expected an object: " + value);
+        }
+
+        return (Map<String, Object>) value;
+    }
+
+    private static List<?> list(Object value)
+    {
+        if (!(value instanceof List))
+        {
+            throw new IllegalArgumentException("Invalid report, expected an array: " + value);
+        }
+
+        return (List<?>) value;
+    }
+
+}
@@ -0,0 +1,515 @@
+package io.github.thred.rwperf;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The parameters of a run. A copy with adapted values is passed to each subprocess by the means of
+ * {@link #toArguments(boolean)}.
+ */
+public class Configuration implements Cloneable
+{
+
+    private long size;
+    private long minSize;
+    private long maxSize;
+    private int processes;
+    private int threads;
+    private boolean virtual;
+    private long seed;
+    private boolean keep;
+    private boolean subprocess;
+    private List<String> agents = new ArrayList<>();
+    private long startAt;
+    private String engine;
+    private int blockSize;
+    private long mapSize;
+    private boolean direct;
+    private int ioDepth;
+    private long interval;
+    private Workload workload;
+    private int ioSize;
+    private int readPercent;
+    private long duration;
+    private long warmup;
+    private String checksum;
+    private String sync;
+    private long syncEvery;
+    private int depth;
+    private int fanOut;
+    private Output output;
+    private File outputFile;
+    private List<File> paths = new ArrayList<>();
+
+    public Configuration()
+    {
+        super();
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    public void setSize(long size)
+    {
+        this.size = size;
+    }
+
+    public long getMinSize()
+    {
+        return minSize;
+    }
+
+    public void setMinSize(long minSize)
+    {
+        this.minSize = minSize;
+    }
+
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    public int getProcesses()
+    {
+        return processes;
+    }
+
+    public void setProcesses(int processes)
+    {
+        this.processes = processes;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public void setThreads(int threads)
+    {
+        this.threads = threads;
+    }
+
+    public boolean isVirtual()
+    {
+        return virtual;
+    }
+
+    public void setVirtual(boolean virtual)
+    {
+        this.virtual = virtual;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    public boolean isKeep()
+    {
+        return keep;
+    }
+
+    public void setKeep(boolean keep)
+    {
+        this.keep = keep;
+    }
+
+    public boolean isSubprocess()
+    {
+        return subprocess;
+    }
+
+    public void setSubprocess(boolean subprocess)
+    {
+        this.subprocess = subprocess;
+    }
+
+    /**
+     * Returns the addresses of the agents, that run the workload, as host:port. If empty, the workload runs locally.
+     *
+     * @return the addresses
+     */
+    public List<String> getAgents()
+    {
+        return agents;
+    }
+
+    public void setAgents(List<String> agents)
+    {
+        this.agents = agents;
+    }
+
+    /**
+     * Returns the time, when the workload starts, so that all agents start at once.
+     *
+     * @return the time in milliseconds since the epoch, 0 to start immediately
+     */
+    public long getStartAt()
+    {
+        return startAt;
+    }
+
+    public void setStartAt(long startAt)
+    {
+        this.startAt = startAt;
+    }
+
+    public String getEngine()
+    {
+        return engine;
+    }
+
+    public void setEngine(String engine)
+    {
+        this.engine = engine;
+    }
+
+    public int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize)
+    {
+        this.blockSize = blockSize;
+    }
+
+    public long getMapSize()
+    {
+        return mapSize;
+    }
+
+    public void setMapSize(long mapSize)
+    {
+        this.mapSize = mapSize;
+    }
+
+    public boolean isDirect()
+    {
+        return direct;
+    }
+
+    public void setDirect(boolean direct)
+    {
+        this.direct = direct;
+    }
+
+    public int getIoDepth()
+    {
+        return ioDepth;
+    }
+
+    public void setIoDepth(int ioDepth)
+    {
+        this.ioDepth = ioDepth;
+    }
+
+    public long getInterval()
+    {
+        return interval;
+    }
+
+    public void setInterval(long interval)
+    {
+        this.interval = interval;
+    }
+
+    public Workload getWorkload()
+    {
+        return workload;
+    }
+
+    public void setWorkload(Workload workload)
+    {
+        this.workload = workload;
+    }
+
+    public int getIoSize()
+    {
+        return ioSize;
+    }
+
+    public void setIoSize(int ioSize)
+    {
+        this.ioSize = ioSize;
+    }
+
+    /**
+     * Returns the percentage of reads of the mixed workload.
+     *
+     * @return the percentage, 0 to 100
+     */
+    public int getReadPercent()
+    {
+        return readPercent;
+    }
+
+    public void setReadPercent(int readPercent)
+    {
+        this.readPercent = readPercent;
+    }
+
+    public long getDuration()
+    {
+        return duration;
+    }
+
+    public void setDuration(long duration)
+    {
+        this.duration = duration;
+    }
+
+    public long getWarmup()
+    {
+        return warmup;
+    }
+
+    public void setWarmup(long warmup)
+    {
+        this.warmup = warmup;
+    }
+
+    public String getChecksum()
+    {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum)
+    {
+        this.checksum = checksum;
+    }
+
+    public String getSync()
+    {
+        return sync;
+    }
+
+    public void setSync(String sync)
+    {
+        this.sync = sync;
+    }
+
+    public long getSyncEvery()
+    {
+        return syncEvery;
+    }
+
+    public void setSyncEvery(long syncEvery)
+    {
+        this.syncEvery = syncEvery;
+    }
+
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    public void setDepth(int depth)
+    {
+        this.depth = depth;
+    }
+
+    public int getFanOut()
+    {
+        return fanOut;
+    }
+
+    public void setFanOut(int fanOut)
+    {
+        this.fanOut = fanOut;
+    }
+
+    public Output getOutput()
+    {
+        return output;
+    }
+
+    public void setOutput(Output output)
+    {
+        this.output = output;
+    }
+
+    /**
+     * Returns the file for the report, the report is printed to the console if null.
+     *
+     * @return the file, may be null
+     */
+    public File getOutputFile()
+    {
+        return outputFile;
+    }
+
+    public void setOutputFile(File outputFile)
+    {
+        this.outputFile = outputFile;
+    }
+
+    public List<File> getPaths()
+    {
+        return paths;
+    }
+
+    public void setPaths(List<File> paths)
+    {
+        this.paths = paths;
+    }
+
+    /**
+     * Returns the command line arguments, that result in this configuration. Local subprocesses get absolute paths,
+     * agents get the paths as specified and resolve them against their own working directories.
+     *
+     * @param absolute true to pass the absolute paths
+     * @return the arguments
+     */
+    public List<String> toArguments(boolean absolute)
+    {
+        List<String> arguments = new ArrayList<>();
+
+        arguments.add("--size");
+        arguments.add(String.valueOf(size));
+        arguments.add("--max-size");
+        arguments.add(String.valueOf(maxSize));
+        arguments.add("--min-size");
+        arguments.add(String.valueOf(minSize));
+        arguments.add("--processes");
+        arguments.add(String.valueOf(processes));
+        arguments.add("--threads");
+        arguments.add(String.valueOf(threads));
+        arguments.add("--seed");
+        arguments.add(String.valueOf(seed));
+        arguments.add("--engine");
+        arguments.add(engine);
+        arguments.add("--block-size");
+        arguments.add(String.valueOf(blockSize));
+        arguments.add("--map-size");
+        arguments.add(String.valueOf(mapSize));
+        arguments.add("--iodepth");
+        arguments.add(String.valueOf(ioDepth));
+        arguments.add("--interval");
+        arguments.add(interval + "ns");
+        arguments.add("--workload");
+        arguments.add(workload.toString());
+        arguments.add("--io-size");
+        arguments.add(String.valueOf(ioSize));
+        arguments.add("--mix");
+        arguments.add(readPercent + ":" + (100 - readPercent));
+        arguments.add("--duration");
+        arguments.add(duration + "ns");
+        arguments.add("--warmup");
+        arguments.add(warmup + "ns");
+        arguments.add("--checksum");
+        arguments.add(checksum);
+        arguments.add("--sync");
+        arguments.add(sync);
+        arguments.add("--sync-every");
+        arguments.add(String.valueOf(syncEvery));
+        arguments.add("--depth");
+        arguments.add(String.valueOf(depth));
+        arguments.add("--fan-out");
+        arguments.add(String.valueOf(fanOut));
+
+        if (direct)
+        {
+            arguments.add("--direct");
+        }
+
+        if (virtual)
+        {
+            arguments.add("--virtual");
+        }
+
+        if (keep)
+        {
+            arguments.add("--keep");
+        }
+
+        if (subprocess)
+        {
+            arguments.add("--subprocess");
+        }
+
+        if (startAt > 0)
+        {
+            arguments.add("--start-at");
+            arguments.add(String.valueOf(startAt));
+        }
+
+        paths.stream().map(absolute ? File::getAbsolutePath : File::getPath).forEach(arguments::add);
+
+        return arguments;
+    }
+
+    /**
+     * Returns all parameters by name, for machine-readable reports. Sizes are in bytes, durations in nanoseconds.
+     *
+     * @return the parameters
+     */
+    public Map<String, Object> toProperties()
+    {
+        Map<String, Object> properties = new LinkedHashMap<>();
+
+        properties.put("size", size);
+        properties.put("minSize", minSize);
+        properties.put("maxSize", maxSize);
+        properties.put("processes", processes);
+        properties.put("threads", threads);
+        properties.put("virtual", virtual);
+        properties.put("seed", seed);
+        properties.put("keep", keep);
+        properties.put("engine", engine);
+        properties.put("blockSize", blockSize);
+        properties.put("mapSize", mapSize);
+        properties.put("direct", direct);
+        properties.put("ioDepth", ioDepth);
+        properties.put("interval", interval);
+        properties.put("workload", workload.toString());
+        properties.put("ioSize", ioSize);
+        properties.put("readPercent", readPercent);
+        properties.put("duration", duration);
+        properties.put("warmup", warmup);
+        properties.put("checksum", checksum);
+        properties.put("sync", sync);
+        properties.put("syncEvery", syncEvery);
+        properties.put("depth", depth);
+        properties.put("fanOut", fanOut);
+        properties.put("agents", agents);
+        properties.put("paths", paths.stream().map(File::getAbsolutePath).collect(Collectors.toList()));
+
+        return properties;
+    }
+
+    @Override
+    public Configuration clone()
+    {
+        try
+        {
+            Configuration configuration = (Configuration) super.clone();
+
+            configuration.agents = new ArrayList<>(agents);
+            configuration.paths = new ArrayList<>(paths);
+
+            return configuration;
+        }
+        catch (CloneNotSupportedException e)
+        {
+            throw new UnsupportedOperationException("Clone not supported", e);
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package io.github.thred.rwperf;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The files of one round of a workload. Path, size and seed of each file are derived from the seed of the plan and the
+ * index of the file, thus the plan regenerates a file whenever it is needed and takes the same small amount of memory
+ * for ten or ten million files.
+ *
+ * The sizes are distributed evenly between min and max size. The files fill the total size, the last file takes the
+ * remainder, if it is at least min size.
+ */
+public class FilePlan
+{
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    public static class Entry
+    {
+        private final File path;
+        private final int pathIndex;
+        private final File file;
+        private final long size;
+        private final long seed;
+
+        Entry(File path, int pathIndex, File file, long size, long seed)
+        {
+            super();
+
+            this.path = path;
+            this.pathIndex = pathIndex;
+            this.file = file;
+            this.size = size;
+            this.seed = seed;
+        }
+
+        /**
+         * Returns the path, that contains the file, maybe within the directories of the layout.
+         *
+         * @return the path
+         */
+        public File getPath()
+        {
+            return path;
+        }
+
+        /**
+         * Returns the index of the path within the paths of the plan.
+         *
+         * @return the index
+         */
+        public int getPathIndex()
+        {
+            return pathIndex;
+        }
+
+        public File getFile()
+        {
+            return file;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * Returns the seed of the content of the file.
+         *
+         * @return the seed
+         */
+        public long getSeed()
+        {
+            return seed;
+        }
+    }
+
+    /**
+     * The finalizer of SplitMix64, turns consecutive values into independent ones.
+     */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+    private final long seed;
+    private final long minSize;
+    private final long maxSize;
+    private final List<File> paths;
+    private final Layout layout;
+    private final long count;
+    private final long lastSize;
+
+    public FilePlan(long seed, long size, long minSize, long maxSize, List<File> paths, Layout layout)
+    {
+        super();
+
+        this.seed = seed;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.paths = paths;
+        this.layout = layout;
+
+        long remaining = size;
+        long index = 0;
+
+        while (true)
+        {
+            long fileSize = sizeOf(index);
+
+            if (fileSize > remaining)
+            {
+                break;
+            }
+
+            remaining -= fileSize;
+            index++;
+        }
+
+        if (remaining > 0 && remaining >= minSize)
+        {
+            lastSize = remaining;
+            count = index + 1;
+        }
+        else
+        {
+            lastSize = 0;
+            count = index;
+        }
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Regenerates the file with the specified index.
+     *
+     * @param index the index, 0 to count - 1
+     * @return the file
+     */
+    public Entry get(long index)
+    {
+        long hash = hash(index);
+        int pathIndex = (int) Long.remainderUnsigned(hash, paths.size());
+        File path = paths.get(pathIndex);
+        long size = lastSize > 0 && index == count - 1 ? lastSize : sizeOf(index);
+        long fileSeed = mix(hash) & Long.MAX_VALUE;
+        File file = new File(layout.getDirectory(path, fileSeed), String.format("rwperf#%016x.dat", fileSeed));
+
+        return new Entry(path, pathIndex, file, size, fileSeed);
+    }
+
+    private long sizeOf(long index)
+    {
+        if (maxSize <= minSize)
+        {
+            return minSize;
+        }
+
+        return minSize + Long.remainderUnsigned(mix(hash(index) ^ GOLDEN_GAMMA), maxSize - minSize);
+    }
+
+    private long hash(long index)
+    {
+        return mix(seed + index * GOLDEN_GAMMA);
+    }
+
+}
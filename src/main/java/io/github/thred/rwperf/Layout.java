@@ -0,0 +1,107 @@
+package io.github.thred.rwperf;
+
+import java.io.File;
+
+/**
+ * Places the files in a tree of directories, thus large numbers of files do not end up in a single directory. The tree
+ * has a root directory per path and the specified number of levels, each with the specified fan-out. The leaf
+ * directory of a file is derived from the seed of the file. A depth of 0 places the files directly into the paths.
+ */
+public class Layout
+{
+
+    private final int depth;
+    private final int fanOut;
+    private final String root;
+
+    /**
+     * Creates a layout.
+     *
+     * @param depth the number of levels below the root directory
+     * @param fanOut the number of directories per directory
+     * @param id the id of the root directory, distinct per process
+     */
+    public Layout(int depth, int fanOut, long id)
+    {
+        super();
+
+        this.depth = depth;
+        this.fanOut = fanOut;
+
+        root = String.format("rwperf#%016x", id & Long.MAX_VALUE);
+    }
+
+    public boolean isFlat()
+    {
+        return depth == 0;
+    }
+
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Returns the number of directories at the level per path. Level 0 is the root directory.
+     *
+     * @param level the level
+     * @return the number of directories
+     */
+    public long getCount(int level)
+    {
+        long count = 1;
+
+        for (int i = 0; i < level; i++)
+        {
+            count *= fanOut;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns a directory of the tree.
+     *
+     * @param path the path
+     * @param level the level, 0 for the root directory
+     * @param index the index of the directory within the level
+     * @return the directory
+     */
+    public File getDirectory(File path, int level, long index)
+    {
+        StringBuilder builder = new StringBuilder(root);
+
+        for (int i = level - 1; i >= 0; i--)
+        {
+            long divisor = getCount(i);
+
+            builder.append(File.separatorChar).append(Long.toHexString(index / divisor % fanOut));
+        }
+
+        return new File(path, builder.toString());
+    }
+
+    /**
+     * Returns the directory of a file.
+     *
+     * @param path the path
+     * @param seed the seed of the file
+     * @return the leaf directory, the path itself if the layout is flat
+     */
+    public File getDirectory(File path, long seed)
+    {
+        if (isFlat())
+        {
+            return path;
+        }
+
+        return getDirectory(path, depth, Long.remainderUnsigned(seed, getCount(depth)));
+    }
+
+    @Override
+    public String toString()
+    {
+        return isFlat() ? "flat" : depth + " x " + fanOut;
+    }
+
+}
@@ -1,10 +1,29 @@
-package io.github.thred.rwperf;
-
-public enum Operation
-{
-
-    Write,
-    Read,
-    Delete
-    
-}
+package io.github.thred.rwperf;
+
+public enum Operation
+{
+
+    Write,
+    Read,
+    Delete,
+    RandomWrite,
+    RandomRead,
+    MixedWrite,
+    MixedRead,
+    Generate,
+    /**
+     * Forcing written data to the device.
+     */
+    Sync,
+    Create,
+    Stat,
+    List,
+    Rename,
+    /**
+     * A rename to another directory.
+     */
+    Move,
+    Mkdir,
+    Rmdir
+    
+}
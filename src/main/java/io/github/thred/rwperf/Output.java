@@ -0,0 +1,40 @@
+package io.github.thred.rwperf;
+
+public enum Output
+{
+
+    /**
+     * The human-readable report.
+     */
+    Text,
+
+    /**
+     * One JSON document with the configuration, the environment and the statistics of each run.
+     */
+    Json,
+
+    /**
+     * One row per run, path and operation. The configuration and the environment are written as comment lines.
+     */
+    Csv;
+
+    public static Output parse(String name)
+    {
+        for (Output output : values())
+        {
+            if (output.name().equalsIgnoreCase(name))
+            {
+                return output;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown output: " + name);
+    }
+
+    @Override
+    public String toString()
+    {
+        return name().toLowerCase();
+    }
+
+}
@@ -1,34 +1,156 @@
-package io.github.thred.rwperf;
-
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-
-public class Pool
-{
-
-    private final ExecutorService executor;
-
-    public Pool(int threads)
-    {
-        super();
-
-        executor = Executors.newFixedThreadPool(threads);
-    }
-
-    public void execute(Runnable runnable)
-    {
-        executor.execute(runnable);
-    }
-
-    public void shutdown() throws InterruptedException
-    {
-        executor.shutdown();
-
-        while (!executor.isTerminated())
-        {
-            executor.awaitTermination(1, TimeUnit.SECONDS);
-        }
-    }
-
-}
+package io.github.thred.rwperf;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the tasks of the workload either with a fixed number of platform threads or with one virtual thread per
+ * task. Virtual threads are limited to the same number of concurrently running tasks by a semaphore, thus both modes
+ * issue the same number of concurrent operations, and the difference is the cost of the threads, e.g. carriers
+ * pinned by blocking within synchronized blocks.
+ *
+ * Virtual threads need Java 21, while the tool targets Java 11, thus the executor is created by reflection.
+ */
+public class Pool
+{
+
+    /**
+     * Returns true if the running JVM supports virtual threads.
+     *
+     * @return true if supported
+     */
+    public static boolean isVirtualSupported()
+    {
+        try
+        {
+            newVirtualThreadPerTaskExecutor().shutdown();
+
+            return true;
+        }
+        catch (UnsupportedOperationException e)
+        {
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later", e);
+        }
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore limiter;
+
+    private int pending = 0;
+
+    public Pool(int threads)
+    {
+        this(threads, false);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param threads the number of threads, or the number of concurrently running tasks, if virtual
+     * @param virtual true to start a virtual thread per task
+     * @throws UnsupportedOperationException if virtual threads are not supported
+     */
+    public Pool(int threads, boolean virtual)
+    {
+        super();
+
+        if (virtual)
+        {
+            executor = newVirtualThreadPerTaskExecutor();
+            limiter = new Semaphore(threads);
+        }
+        else
+        {
+            executor = Executors.newFixedThreadPool(threads);
+            limiter = null;
+        }
+    }
+
+    public void execute(Runnable runnable)
+    {
+        synchronized (this)
+        {
+            pending++;
+        }
+
+        executor.execute(() -> {
+            try
+            {
+                if (limiter != null)
+                {
+                    limiter.acquireUninterruptibly();
+
+                    try
+                    {
+                        runnable.run();
+                    }
+                    finally
+                    {
+                        limiter.release();
+                    }
+                }
+                else
+                {
+                    runnable.run();
+                }
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    pending--;
+                    notifyAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until all runnables executed so far have completed.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    public void await() throws InterruptedException
+    {
+        awaitPending(0);
+    }
+
+    /**
+     * Waits until no more than the specified number of runnables are queued or running.
+     *
+     * @param count the number of runnables
+     * @throws InterruptedException if interrupted
+     */
+    public synchronized void awaitPending(int count) throws InterruptedException
+    {
+        while (pending > count)
+        {
+            wait();
+        }
+    }
+
+    public void shutdown() throws InterruptedException
+    {
+        executor.shutdown();
+
+        while (!executor.isTerminated())
+        {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+}
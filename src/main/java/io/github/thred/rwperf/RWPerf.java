@@ -1,327 +1,1159 @@
-package io.github.thred.rwperf;
-
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.Random;
-
-import io.github.thred.rwperf.util.Arguments;
-import io.github.thred.rwperf.util.InputHandler;
-
-public class RWPerf
-{
-
-    private static final String DEFAULT_SIZE = "64mb";
-    private static final int DEFAULT_PROCESSES = 1;
-    private static final int DEFAULT_THREADS = 1;
-    private static final long DEFAULT_SEED = 1;
-    private static final int MAX_FILES = 1024 * 8;
-    private static final int MAX_PROCESSES = 16;
-    private static final int MAX_THREADS = 16;
-    private static final long MIN_SIZE = 1;
-
-    public static void main(String... args) throws InterruptedException
-    {
-        Arguments arguments = new Arguments(args);
-
-        if (arguments.consumeFlag("-?") || arguments.consumeFlag("--help"))
-        {
-            showHelp();
-        }
-
-        long size = parseSize(arguments
-            .consume("-s", String.class)
-            .orElse(arguments.consume("--size", String.class).orElse(DEFAULT_SIZE)));
-        long maxSize =
-            parseSize(arguments.consume("--max-size", String.class).orElse(String.valueOf(Math.max(size / 100, 1))));
-        long minSize = parseSize(arguments.consume("--min-size", String.class).orElse("1kb"));
-
-        if (size < 0)
-        {
-            System.err.println("Invalid size: " + formatSize(size));
-            System.exit(-1);
-        }
-
-        if (minSize < MIN_SIZE)
-        {
-            System.err.println("Min-size too small: " + formatSize(minSize) + "<" + formatSize(MIN_SIZE));
-            System.exit(-1);
-        }
-
-        if (maxSize < minSize)
-        {
-            System.err
-                .println("Max-size must be greater or equals to min-size: "
-                    + formatSize(minSize)
-                    + ">"
-                    + formatSize(maxSize));
-            System.exit(-1);
-        }
-
-        long averageSize = (minSize + maxSize) / 2;
-
-        if (size / averageSize > MAX_FILES)
-        {
-            System.err
-                .println("Request will result in too many files: "
-                    + formatSize(size)
-                    + "/"
-                    + formatSize(averageSize)
-                    + "="
-                    + (size / averageSize));
-            System.exit(-1);
-        }
-
-        int processes = arguments
-            .consume("-p", Integer.class)
-            .orElse(arguments.consume("--processes", Integer.class).orElse(DEFAULT_PROCESSES));
-
-        if (processes < 1)
-        {
-            System.err.println("Invalid number of processes: " + processes);
-            System.exit(-1);
-        }
-
-        if (processes > MAX_PROCESSES)
-        {
-            System.err.println("Too many processes: " + processes + ">" + MAX_PROCESSES);
-            System.exit(-1);
-        }
-
-        int threads = arguments
-            .consume("-t", Integer.class)
-            .orElse(arguments.consume("--threads", Integer.class).orElse(DEFAULT_THREADS));
-
-        if (threads < 1)
-        {
-            System.err.println("Invalid number of threads: " + threads);
-            System.exit(-1);
-        }
-
-        if (threads > MAX_THREADS)
-        {
-            System.err.println("Too many threads: " + threads + ">" + MAX_THREADS);
-            System.exit(-1);
-        }
-
-        long seed = arguments.consume("--seed", Long.class).orElse(DEFAULT_SEED);
-        boolean keep = arguments.consumeFlag("--keep");
-        boolean subprocess = arguments.consumeFlag("--subprocess");
-
-        List<File> paths = new ArrayList<>();
-        Optional<String> filename = arguments.consume(String.class);
-
-        while (filename.isPresent())
-        {
-            File path = new File(filename.get());
-
-            if (!path.isDirectory())
-            {
-                System.err.println(path.getAbsolutePath() + " is no directory.");
-                System.exit(-1);
-            }
-
-            paths.add(path);
-
-            filename = arguments.consume(String.class);
-        }
-
-        if (paths.isEmpty())
-        {
-            paths.add(new File("."));
-        }
-
-        ResultConsumer consumer;
-
-        if (subprocess)
-        {
-            consumer = new ConsoleResultConsumer();
-        }
-        else
-        {
-            consumer = new AverageResultConsumer(size, minSize, maxSize, processes, threads, seed, keep, paths);
-        }
-
-        if (processes == 1)
-        {
-            Service service = new Service(consumer, paths, threads);
-
-            service.prepare(size, minSize, maxSize, seed, !keep);
-            service.shutdown();
-        }
-        else
-        {
-            System.out.println("Starting " + processes + " processes...");
-            System.out.println();
-
-            Pool pool = new Pool(processes);
-            Random random = new Random(seed);
-
-            for (int i = 0; i < processes; i++)
-            {
-                int index = i + 1;
-
-                pool
-                    .execute(() -> process(index, consumer, size / processes, minSize, maxSize, threads,
-                        random.nextLong(), keep, paths));
-            }
-
-            pool.shutdown();
-
-            System.out.println();
-        }
-
-        System.out.println(consumer);
-    }
-
-    private static void process(int index, ResultConsumer consumer, long size, long minSize, long maxSize, int threads,
-        long seed, boolean keep, List<File> paths)
-    {
-        String javaHome = System.getProperty("java.home");
-        String javaBin = javaHome + File.separator + "bin" + File.separator + "java";
-        String classpath = System.getProperty("java.class.path");
-        String className = RWPerf.class.getCanonicalName();
-
-        List<String> commands = new ArrayList<>();
-
-        commands.add(javaBin);
-        commands.add("-cp");
-        commands.add(classpath);
-        commands.add(className);
-        commands.add("--size");
-        commands.add(String.valueOf(size));
-        commands.add("--max-size");
-        commands.add(String.valueOf(maxSize));
-        commands.add("--min-size");
-        commands.add(String.valueOf(minSize));
-        commands.add("--processes");
-        commands.add("1");
-        commands.add("--threads");
-        commands.add(String.valueOf(threads));
-        commands.add("--seed");
-        commands.add(String.valueOf(seed));
-
-        if (keep)
-        {
-            commands.add("--keep");
-        }
-
-        commands.add("--subprocess");
-
-        paths.stream().map(File::getAbsolutePath).forEach(commands::add);
-
-        ProcessBuilder builder = new ProcessBuilder(commands);
-
-        Process process;
-
-        try
-        {
-            process = builder.start();
-        }
-        catch (IOException e)
-        {
-            e.printStackTrace(System.err);
-            return;
-        }
-
-        InputHandler.handle(process.getErrorStream(), System.err::println);
-        InputHandler.handle(process.getInputStream(), consumer::consume);
-
-        try
-        {
-            process.waitFor();
-        }
-        catch (InterruptedException e)
-        {
-            e.printStackTrace(System.err);
-        }
-
-        System.out.println("Process " + index + " finished with result code " + process.exitValue());
-    }
-
-    private static void showHelp()
-    {
-        System.out.println("RWPerf");
-        System.out.println("======");
-        System.out.println("");
-        System.out.println("A simple tool for testing Java read and write performance.");
-        System.out.println("");
-        System.out.println("Usage: rwperf [options] [path...]");
-        System.out.println("");
-        System.out.println("The default path is the current directory. The application will write and read");
-        System.out.println("multiple files at the specified paths and print a summary of the performance.");
-        System.out.println("");
-        System.out.println("Options:");
-        System.out.println("");
-        System.out.println("--------------------------------------------------------------------------------");
-        System.out.println("-?, --help             Show this help.");
-        System.out.println("-s, --size [int]       Number of bytes to write. Supports kb, mb, gb.");
-        System.out.println("                       Default is " + DEFAULT_SIZE + ".");
-        System.out.println("--max-size [int]       Max size of one file. Default is size/100.");
-        System.out.println("--min-size [int]       Max size of one file. Default is 1kb.");
-        System.out.println("-p, --processes [int]  The number of OS processes to use. Default is 1.");
-        System.out.println("-t, --threads [int]    The number of threads per process. Default is 1.");
-        System.out.println("--seed [int]           The seed for the random generator.");
-        System.out.println("--keep                 Do not delete the created files on exit.");
-    }
-
-    private static long parseSize(String s)
-    {
-        int mult = 1;
-
-        if (s.endsWith("gb"))
-        {
-            mult = 1024 * 1024 * 1024;
-            s = s.substring(0, s.length() - 2);
-        }
-        else if (s.endsWith("mb"))
-        {
-            mult = 1024 * 1024;
-            s = s.substring(0, s.length() - 2);
-        }
-        else if (s.endsWith("kb"))
-        {
-            mult = 1024;
-            s = s.substring(0, s.length() - 2);
-        }
-        else if (s.endsWith("b"))
-        {
-            mult = 1;
-            s = s.substring(0, s.length() - 1);
-        }
-
-        try
-        {
-            return Long.parseLong(s) * mult;
-        }
-        catch (NumberFormatException e)
-        {
-            System.err.println("Failed to parse size argument: " + s);
-            System.exit(-1);
-        }
-
-        return -1;
-    }
-
-    public static String formatSize(long size)
-    {
-        if (size >= 1024 * 1024 * 1024)
-        {
-            return String.format("%,.1f gb", size / (double) (1024 * 1024 * 1024));
-        }
-
-        if (size >= 1024 * 1024)
-        {
-            return String.format("%,.1f mb", size / (double) (1024 * 1024));
-        }
-
-        if (size >= 1024)
-        {
-            return String.format("%,.1f kb", size / 1024d);
-        }
-
-        return String.format("%,d b", size);
-    }
-}
+package io.github.thred.rwperf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import io.github.thred.rwperf.engine.Engine;
+import io.github.thred.rwperf.engine.StreamEngine;
+import io.github.thred.rwperf.util.Arguments;
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.InputHandler;
+import io.github.thred.rwperf.util.Json;
+import io.github.thred.rwperf.util.Sync;
+
+public class RWPerf
+{
+
+    private static final String DEFAULT_SIZE = "64mb";
+    private static final int DEFAULT_PROCESSES = 1;
+    private static final int DEFAULT_THREADS = 1;
+    private static final long DEFAULT_SEED = 1;
+    private static final String DEFAULT_ENGINE = StreamEngine.NAME;
+    private static final String DEFAULT_CHECKSUM = Checksum.SHA1;
+    private static final String DEFAULT_SYNC = Sync.NONE;
+    private static final String DEFAULT_BLOCK_SIZE = "4kb";
+    private static final String DEFAULT_MAP_SIZE = "64mb";
+    private static final int DEFAULT_IO_DEPTH = 1;
+    private static final String DEFAULT_WORKLOAD = "sequential";
+    private static final String DEFAULT_MIX = "50:50";
+    private static final String DEFAULT_OUTPUT = "text";
+    private static final String DEFAULT_THRESHOLD = "5%";
+    private static final int DEFAULT_DEPTH = 0;
+    private static final int DEFAULT_FAN_OUT = 256;
+    private static final long DEFAULT_SNAPSHOT_PERIOD = 1000000000;
+    private static final int MAX_PROCESSES = 16;
+    private static final int MAX_THREADS = 16;
+    private static final int MAX_VIRTUAL_THREADS = 1 << 16;
+    private static final int MAX_IO_DEPTH = 1024;
+    private static final long MAX_DIRECTORIES = 1 << 24;
+    private static final long MIN_SIZE = 1;
+    private static final int REGRESSION_EXIT_CODE = 1;
+    private static final long START_DELAY = 2000;
+    private static final int CONNECT_TIMEOUT = 10000;
+
+    public static void main(String... args) throws InterruptedException
+    {
+        Arguments arguments = new Arguments(args);
+
+        if (arguments.consumeFlag("-?") || arguments.consumeFlag("--help"))
+        {
+            showHelp();
+        }
+
+        Optional<Integer> agentPort = arguments.consume("--agent", Integer.class);
+
+        if (agentPort.isPresent())
+        {
+            agent(arguments.consume("--bind", String.class).orElse(null), agentPort.get());
+            return;
+        }
+
+        long size = parseSize(arguments
+            .consume("-s", String.class)
+            .orElse(arguments.consume("--size", String.class).orElse(DEFAULT_SIZE)));
+        long maxSize =
+            parseSize(arguments.consume("--max-size", String.class).orElse(String.valueOf(Math.max(size / 100, 1))));
+        long minSize = parseSize(arguments.consume("--min-size", String.class).orElse("1kb"));
+
+        if (size < 0)
+        {
+            System.err.println("Invalid size: " + formatSize(size));
+            System.exit(-1);
+        }
+
+        if (minSize < MIN_SIZE)
+        {
+            System.err.println("Min-size too small: " + formatSize(minSize) + "<" + formatSize(MIN_SIZE));
+            System.exit(-1);
+        }
+
+        if (maxSize < minSize)
+        {
+            System.err
+                .println("Max-size must be greater or equals to min-size: "
+                    + formatSize(minSize)
+                    + ">"
+                    + formatSize(maxSize));
+            System.exit(-1);
+        }
+
+        int processes = arguments
+            .consume("-p", Integer.class)
+            .orElse(arguments.consume("--processes", Integer.class).orElse(DEFAULT_PROCESSES));
+
+        if (processes < 1)
+        {
+            System.err.println("Invalid number of processes: " + processes);
+            System.exit(-1);
+        }
+
+        if (processes > MAX_PROCESSES)
+        {
+            System.err.println("Too many processes: " + processes + ">" + MAX_PROCESSES);
+            System.exit(-1);
+        }
+
+        boolean virtual = arguments.consumeFlag("--virtual");
+
+        if (virtual && !Pool.isVirtualSupported())
+        {
+            System.err.println("Virtual threads need Java 21 or later");
+            System.exit(-1);
+        }
+
+        int maxThreads = virtual ? MAX_VIRTUAL_THREADS : MAX_THREADS;
+        int threads = arguments
+            .consume("-t", Integer.class)
+            .orElse(arguments.consume("--threads", Integer.class).orElse(DEFAULT_THREADS));
+
+        if (threads < 1)
+        {
+            System.err.println("Invalid number of threads: " + threads);
+            System.exit(-1);
+        }
+
+        if (threads > maxThreads)
+        {
+            System.err.println("Too many threads: " + threads + ">" + maxThreads);
+            System.exit(-1);
+        }
+
+        List<Integer> sweepThreads = parseRange(arguments.consume("--sweep-threads", String.class), maxThreads);
+        List<Integer> sweepProcesses =
+            parseRange(arguments.consume("--sweep-processes", String.class), MAX_PROCESSES);
+        List<Integer> sweepBlockSizes =
+            parseRange(arguments.consume("--sweep-block-size", String.class), Integer.MAX_VALUE);
+
+        if (Stream.of(sweepThreads, sweepProcesses, sweepBlockSizes).filter(list -> !list.isEmpty()).count() > 1)
+        {
+            System.err.println("Only one sweep is supported at a time");
+            System.exit(-1);
+        }
+
+        int iterations = arguments.consume("--iterations", Integer.class).orElse(1);
+
+        if (iterations < 1)
+        {
+            System.err.println("Invalid number of iterations: " + iterations);
+            System.exit(-1);
+        }
+
+        String baselineName = arguments.consume("--baseline", String.class).orElse(null);
+        String candidateName = arguments.consume("--candidate", String.class).orElse(null);
+        Map<String, Object> baseline = baselineName != null ? load(baselineName) : null;
+        Map<String, Object> candidate = candidateName != null ? load(candidateName) : null;
+
+        if (candidate != null && baseline == null)
+        {
+            System.err.println("A candidate needs a baseline to compare with");
+            System.exit(-1);
+        }
+
+        double threshold = parsePercent(arguments.consume("--threshold", String.class).orElse(DEFAULT_THRESHOLD));
+
+        if (Stream.of(sweepThreads, sweepProcesses, sweepBlockSizes).anyMatch(list -> !list.isEmpty())
+            && (iterations > 1 || baseline != null))
+        {
+            System.err.println("Iterations and comparisons are not supported with sweeps");
+            System.exit(-1);
+        }
+
+        long seed = arguments.consume("--seed", Long.class).orElse(DEFAULT_SEED);
+        boolean keep = arguments.consumeFlag("--keep");
+        boolean subprocess = arguments.consumeFlag("--subprocess");
+        long startAt = arguments.consume("--start-at", Long.class).orElse(0L);
+        List<String> agents = arguments
+            .consume("--agents", String.class)
+            .map(s -> Arrays.asList(s.split(",")))
+            .orElse(new ArrayList<>());
+
+        for (String agent : agents)
+        {
+            if (!agent.matches(".+:\\d+"))
+            {
+                System.err.println("Invalid agent, expected host:port: " + agent);
+                System.exit(-1);
+            }
+        }
+
+        String engineName = arguments.consume("--engine", String.class).orElse(DEFAULT_ENGINE);
+        long blockSize = parseSize(arguments.consume("--block-size", String.class).orElse(DEFAULT_BLOCK_SIZE));
+
+        if (blockSize < 1 || blockSize > Integer.MAX_VALUE)
+        {
+            System.err.println("Invalid block size: " + formatSize(blockSize));
+            System.exit(-1);
+        }
+
+        long mapSize = parseSize(arguments.consume("--map-size", String.class).orElse(DEFAULT_MAP_SIZE));
+        boolean direct = arguments.consumeFlag("--direct");
+        int ioDepth = arguments.consume("--iodepth", Integer.class).orElse(DEFAULT_IO_DEPTH);
+
+        if (ioDepth < 1)
+        {
+            System.err.println("Invalid I/O depth: " + ioDepth);
+            System.exit(-1);
+        }
+
+        if (ioDepth > MAX_IO_DEPTH)
+        {
+            System.err.println("I/O depth too high: " + ioDepth + ">" + MAX_IO_DEPTH);
+            System.exit(-1);
+        }
+
+        long interval = parseDuration(arguments.consume("--interval", String.class).orElse("0"));
+
+        if (interval < 0)
+        {
+            System.err.println("Invalid interval: " + RWPerf.formatDuration(interval));
+            System.exit(-1);
+        }
+
+        Workload workload = null;
+
+        try
+        {
+            workload = Workload.parse(arguments.consume("--workload", String.class).orElse(DEFAULT_WORKLOAD));
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+
+        // the blocks are transferred one by one, the threads determine the number of transfers in flight
+        if (workload == Workload.Random && ioDepth > 1)
+        {
+            System.err.println("The random workload does not support an I/O depth > 1, use more threads instead.");
+            System.exit(-1);
+        }
+
+        Optional<String> ioSizeArgument = arguments.consume("--io-size", String.class);
+        long ioSize = ioSizeArgument.map(RWPerf::parseSize).orElse(blockSize);
+
+        if (ioSize < 1 || ioSize > Integer.MAX_VALUE)
+        {
+            System.err.println("Invalid I/O size: " + formatSize(ioSize));
+            System.exit(-1);
+        }
+
+        long duration = parseDuration(arguments.consume("--duration", String.class).orElse("0"));
+
+        if (duration < 0)
+        {
+            System.err.println("Invalid duration: " + formatDuration(duration));
+            System.exit(-1);
+        }
+
+        String checksum = arguments.consume("--checksum", String.class).orElse(DEFAULT_CHECKSUM);
+
+        try
+        {
+            Checksum.create(checksum);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+
+        String sync = arguments.consume("--sync", String.class).orElse(DEFAULT_SYNC);
+        long syncEvery = parseSize(arguments.consume("--sync-every", String.class).orElse("0"));
+
+        try
+        {
+            new Sync(sync, syncEvery, null);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+
+        long warmup = parseDuration(arguments.consume("--warmup", String.class).orElse("0"));
+
+        if (warmup < 0)
+        {
+            System.err.println("Invalid warmup: " + formatDuration(warmup));
+            System.exit(-1);
+        }
+
+        int readPercent = parseMix(arguments.consume("--mix", String.class).orElse(DEFAULT_MIX));
+
+        int depth = arguments.consume("--depth", Integer.class).orElse(DEFAULT_DEPTH);
+        int fanOut = arguments.consume("--fan-out", Integer.class).orElse(DEFAULT_FAN_OUT);
+
+        if (depth < 0 || fanOut < 1)
+        {
+            System.err.println("Invalid layout: " + depth + " x " + fanOut);
+            System.exit(-1);
+        }
+
+        if (Math.pow(fanOut, depth) > MAX_DIRECTORIES)
+        {
+            System.err.println("Too many directories: " + fanOut + "^" + depth + ">" + MAX_DIRECTORIES);
+            System.exit(-1);
+        }
+
+        Output output = null;
+
+        try
+        {
+            output = Output.parse(arguments.consume("--output", String.class).orElse(DEFAULT_OUTPUT));
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+
+        File outputFile = arguments.consume("--output-file", String.class).map(File::new).orElse(null);
+
+        if (outputFile != null && !outputFile.getAbsoluteFile().getParentFile().isDirectory())
+        {
+            System.err.println(outputFile.getAbsoluteFile().getParent() + " is no directory.");
+            System.exit(-1);
+        }
+
+        List<File> paths = new ArrayList<>();
+        Optional<String> filename = arguments.consume(String.class);
+
+        while (filename.isPresent())
+        {
+            File path = new File(filename.get());
+
+            // the paths must exist on the agents, not necessarily here
+            if (agents.isEmpty() && !path.isDirectory())
+            {
+                System.err.println(path.getAbsolutePath() + " is no directory.");
+                System.exit(-1);
+            }
+
+            paths.add(path);
+
+            filename = arguments.consume(String.class);
+        }
+
+        if (paths.isEmpty())
+        {
+            paths.add(new File("."));
+        }
+
+        Configuration configuration = new Configuration();
+
+        configuration.setSize(size);
+        configuration.setMinSize(minSize);
+        configuration.setMaxSize(maxSize);
+        configuration.setProcesses(processes);
+        configuration.setThreads(threads);
+        configuration.setVirtual(virtual);
+        configuration.setSeed(seed);
+        configuration.setKeep(keep);
+        configuration.setSubprocess(subprocess);
+        configuration.setAgents(agents);
+        configuration.setStartAt(startAt);
+        configuration.setEngine(engineName);
+        configuration.setBlockSize((int) blockSize);
+        configuration.setMapSize(mapSize);
+        configuration.setDirect(direct);
+        configuration.setIoDepth(ioDepth);
+        configuration.setInterval(interval);
+        configuration.setWorkload(workload);
+        configuration.setIoSize((int) ioSize);
+        configuration.setReadPercent(readPercent);
+        configuration.setDuration(duration);
+        configuration.setWarmup(warmup);
+        configuration.setChecksum(checksum);
+        configuration.setSync(sync);
+        configuration.setSyncEvery(syncEvery);
+        configuration.setDepth(depth);
+        configuration.setFanOut(fanOut);
+        configuration.setOutput(output);
+        configuration.setOutputFile(outputFile);
+        configuration.setPaths(paths);
+
+        if (candidate != null)
+        {
+            compare(baselineName, baseline, candidateName, candidate, threshold);
+            return;
+        }
+
+        if (!sweepBlockSizes.isEmpty())
+        {
+            boolean followIoSize = !ioSizeArgument.isPresent();
+
+            // the I/O size of the random workload follows the block size, unless it has been specified
+            sweep(configuration, new Sweep("Block size", false), sweepBlockSizes, RWPerf::formatSize,
+                (stepConfiguration, value) -> {
+                    stepConfiguration.setBlockSize(value);
+
+                    if (followIoSize)
+                    {
+                        stepConfiguration.setIoSize(value);
+                    }
+                });
+            return;
+        }
+
+        if (!sweepThreads.isEmpty())
+        {
+            sweep(configuration, new Sweep("Threads", true), sweepThreads, String::valueOf,
+                Configuration::setThreads);
+            return;
+        }
+
+        if (!sweepProcesses.isEmpty())
+        {
+            sweep(configuration, new Sweep("Processes", true), sweepProcesses, String::valueOf,
+                Configuration::setProcesses);
+            return;
+        }
+
+        if (iterations > 1 || baseline != null)
+        {
+            Report report = sweep(configuration, new Sweep("Iteration", false),
+                IntStream.rangeClosed(1, iterations).boxed().collect(Collectors.toList()), String::valueOf,
+                (stepConfiguration, value) -> {
+                    // each iteration repeats the same workload
+                });
+
+            if (baseline != null)
+            {
+                compare(baselineName, baseline, "this run", report.toDocument(), threshold);
+            }
+
+            return;
+        }
+
+        Engine engine = create(configuration);
+
+        if (subprocess)
+        {
+            ResultConsumer consumer =
+                new SnapshotResultConsumer(interval > 0 ? interval : DEFAULT_SNAPSHOT_PERIOD, paths.size());
+            long delay = startAt - System.currentTimeMillis();
+
+            // an agent waits for the start time of the coordinator
+            if (delay > 0)
+            {
+                Thread.sleep(delay);
+            }
+
+            run(consumer, engine, configuration);
+
+            consumer.finish();
+
+            System.out.println(consumer);
+            return;
+        }
+
+        AverageResultConsumer consumer = new AverageResultConsumer(configuration);
+
+        run(consumer, engine, configuration);
+
+        consumer.finish();
+
+        Report report = new Report(configuration, null);
+
+        report.add(null, consumer.getStatistics(), consumer.getPathStatistics());
+
+        output(configuration, consumer.toString(), report);
+    }
+
+    private static Engine create(Configuration configuration)
+    {
+        // the agents create their own engines, the paths need not exist on the coordinator
+        if (!configuration.getAgents().isEmpty())
+        {
+            return null;
+        }
+
+        try
+        {
+            return Engine.create(configuration);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+
+            return null;
+        }
+    }
+
+    private static void run(ResultConsumer consumer, Engine engine, Configuration configuration)
+        throws InterruptedException
+    {
+        int processes = configuration.getProcesses();
+        List<String> agents = configuration.getAgents();
+
+        if (!agents.isEmpty())
+        {
+            System.out.println("Starting " + agents.size() + " agents...");
+            System.out.println();
+
+            Pool pool = new Pool(agents.size());
+            Random random = new Random(configuration.getSeed());
+            long startAt = System.currentTimeMillis() + START_DELAY;
+
+            for (int i = 0; i < agents.size(); i++)
+            {
+                String address = agents.get(i);
+                Configuration agentConfiguration = configuration.clone();
+
+                agentConfiguration.setSize(configuration.getSize() / agents.size());
+                agentConfiguration.setSeed(random.nextLong());
+                agentConfiguration.setSubprocess(true);
+                agentConfiguration.setAgents(new ArrayList<>());
+                agentConfiguration.setStartAt(startAt);
+
+                pool.execute(() -> remote(address, consumer, agentConfiguration));
+            }
+
+            pool.shutdown();
+
+            System.out.println();
+        }
+        else if (processes == 1)
+        {
+            Service service = new Service(consumer, engine, configuration);
+
+            service.run();
+            service.shutdown();
+        }
+        else
+        {
+            System.out.println("Starting " + processes + " processes...");
+            System.out.println();
+
+            Pool pool = new Pool(processes);
+            Random random = new Random(configuration.getSeed());
+
+            for (int i = 0; i < processes; i++)
+            {
+                int index = i + 1;
+                Configuration processConfiguration = configuration.clone();
+
+                processConfiguration.setSize(configuration.getSize() / processes);
+                processConfiguration.setProcesses(1);
+                processConfiguration.setSeed(random.nextLong());
+                processConfiguration.setSubprocess(true);
+
+                pool.execute(() -> process(index, consumer, processConfiguration));
+            }
+
+            pool.shutdown();
+
+            System.out.println();
+        }
+    }
+
+    /**
+     * Runs the workload once per value. The seed stays the same, thus each run uses the same file plan. The engines of
+     * all steps are created first, thus an invalid value fails before the first run.
+     */
+    private static Report sweep(Configuration configuration, Sweep sweep, List<Integer> values,
+        IntFunction<String> format, ObjIntConsumer<Configuration> step) throws InterruptedException
+    {
+        Report report = new Report(configuration, sweep.getParameter());
+        List<Configuration> stepConfigurations = new ArrayList<>();
+        List<Engine> engines = new ArrayList<>();
+
+        for (int value : values)
+        {
+            Configuration stepConfiguration = configuration.clone();
+
+            step.accept(stepConfiguration, value);
+
+            stepConfigurations.add(stepConfiguration);
+            engines.add(create(stepConfiguration));
+        }
+
+        for (int i = 0; i < values.size(); i++)
+        {
+            int value = values.get(i);
+            Configuration stepConfiguration = stepConfigurations.get(i);
+
+            System.out.println(sweep.getParameter() + ": " + format.apply(value) + "...");
+
+            Engine engine = engines.get(i);
+            AverageResultConsumer consumer = new AverageResultConsumer(stepConfiguration);
+
+            run(consumer, engine, stepConfiguration);
+
+            consumer.finish();
+
+            sweep.add(format.apply(value), consumer.getStatistics());
+            report.add(format.apply(value), consumer.getStatistics(), consumer.getPathStatistics());
+        }
+
+        System.out.println();
+
+        output(configuration, "RWPerf Sweep\n============\n\n" + sweep, report);
+
+        return report;
+    }
+
+    /**
+     * Prints the comparison and exits with {@link #REGRESSION_EXIT_CODE} if there is a regression.
+     */
+    private static void compare(String baselineName, Map<String, Object> baseline, String candidateName,
+        Map<String, Object> candidate, double threshold)
+    {
+        Comparison comparison = null;
+
+        try
+        {
+            comparison = new Comparison(baselineName, baseline, candidateName, candidate, threshold);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(-1);
+        }
+
+        System.out.println(comparison);
+
+        if (comparison.isRegression())
+        {
+            System.exit(REGRESSION_EXIT_CODE);
+        }
+    }
+
+    /**
+     * Loads a report written with --output json.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> load(String name)
+    {
+        try
+        {
+            byte[] bytes = Files.readAllBytes(new File(name).toPath());
+            Object document = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+
+            if (document instanceof Map)
+            {
+                return (Map<String, Object>) document;
+            }
+
+            System.err.println(name + " is no JSON report.");
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            System.err.println("Failed to load " + name + ": " + e.getMessage());
+        }
+
+        System.exit(-1);
+
+        return null;
+    }
+
+    /**
+     * Prints the text report. Any other output replaces the text report, unless an output file is configured. The
+     * file is written after the workload has completed, thus it does not affect the results.
+     */
+    private static void output(Configuration configuration, String text, Report report)
+    {
+        Output output = configuration.getOutput();
+        String document = output == Output.Text ? text : report.format(output);
+        File file = configuration.getOutputFile();
+
+        if (file == null)
+        {
+            System.out.println(document);
+            return;
+        }
+
+        System.out.println(text);
+
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+        {
+            writer.write(document);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Returns the command, that starts a subprocess with the same Java and classpath as this process.
+     *
+     * @param arguments the arguments for RWPerf
+     * @return the command
+     */
+    static List<String> command(List<String> arguments)
+    {
+        String javaHome = System.getProperty("java.home");
+        String javaBin = javaHome + File.separator + "bin" + File.separator + "java";
+        String classpath = System.getProperty("java.class.path");
+        String className = RWPerf.class.getCanonicalName();
+
+        List<String> commands = new ArrayList<>();
+
+        commands.add(javaBin);
+        commands.add("-cp");
+        commands.add(classpath);
+        commands.add(className);
+        commands.addAll(arguments);
+
+        return commands;
+    }
+
+    private static void agent(String bind, int port)
+    {
+        if (port < 0 || port > 65535)
+        {
+            System.err.println("Invalid port: " + port);
+            System.exit(-1);
+        }
+
+        InetAddress bindAddress = null;
+
+        try
+        {
+            bindAddress = bind != null ? InetAddress.getByName(bind) : null;
+        }
+        catch (UnknownHostException e)
+        {
+            System.err.println("Invalid bind address: " + bind);
+            System.exit(-1);
+        }
+
+        try
+        {
+            new Agent(bindAddress, port).run();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace(System.err);
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Runs the workload on an agent and passes its snapshots to the consumer. See {@link Agent} for the protocol.
+     */
+    private static void remote(String address, ResultConsumer consumer, Configuration configuration)
+    {
+        int index = address.lastIndexOf(':');
+        InetSocketAddress socketAddress =
+            new InetSocketAddress(address.substring(0, index), Integer.parseInt(address.substring(index + 1)));
+        String exitCode = "-";
+
+        try (Socket socket = new Socket())
+        {
+            socket.connect(socketAddress, CONNECT_TIMEOUT);
+
+            BufferedReader reader =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter writer =
+                new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+            List<String> arguments = configuration.toArguments(false);
+
+            writer.println(Agent.RUN + " | " + arguments.size());
+            arguments.forEach(writer::println);
+
+            String line;
+
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.startsWith(Agent.EXIT))
+                {
+                    exitCode = line.split("\\|", 2)[1].trim();
+                }
+                else if (line.startsWith(Agent.ERROR))
+                {
+                    System.err.println(address + ": " + line.split("\\|", 2)[1].trim());
+                }
+                else
+                {
+                    consumer.consume(line);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Agent " + address + " failed: " + e.getMessage());
+        }
+
+        System.out.println("Agent " + address + " finished with result code " + exitCode);
+    }
+
+    private static void process(int index, ResultConsumer consumer, Configuration configuration)
+    {
+        ProcessBuilder builder = new ProcessBuilder(command(configuration.toArguments(true)));
+
+        Process process;
+
+        try
+        {
+            process = builder.start();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace(System.err);
+            return;
+        }
+
+        InputHandler.handle(process.getErrorStream(), System.err::println);
+        InputHandler output = InputHandler.handle(process.getInputStream(), consumer::consume);
+
+        try
+        {
+            process.waitFor();
+
+            // the last snapshot may still be buffered
+            output.await();
+        }
+        catch (InterruptedException e)
+        {
+            e.printStackTrace(System.err);
+        }
+
+        System.out.println("Process " + index + " finished with result code " + process.exitValue());
+    }
+
+    private static void showHelp()
+    {
+        System.out.println("RWPerf");
+        System.out.println("======");
+        System.out.println("");
+        System.out.println("A simple tool for testing Java read and write performance.");
+        System.out.println("");
+        System.out.println("Usage: rwperf [options] [path...]");
+        System.out.println("");
+        System.out.println("The default path is the current directory. The application will write and read");
+        System.out.println("multiple files at the specified paths and print a summary of the performance.");
+        System.out.println("");
+        System.out.println("Options:");
+        System.out.println("");
+        System.out.println("--------------------------------------------------------------------------------");
+        System.out.println("-?, --help             Show this help.");
+        System.out.println("-s, --size [int]       Number of bytes to write. Supports kb, mb, gb.");
+        System.out.println("                       Default is " + DEFAULT_SIZE + ".");
+        System.out.println("--max-size [int]       Max size of one file. Default is size/100.");
+        System.out.println("--min-size [int]       Max size of one file. Default is 1kb.");
+        System.out.println("-p, --processes [int]  The number of OS processes to use. Default is 1.");
+        System.out.println("-t, --threads [int]    The number of threads per path and process. Each path has");
+        System.out.println("                       its own threads. Default is " + DEFAULT_THREADS + ".");
+        System.out.println("--virtual              Start a virtual thread per task instead of using a pool");
+        System.out.println("                       of threads. The number of threads limits the tasks");
+        System.out.println("                       running concurrently, up to " + MAX_VIRTUAL_THREADS + ". Needs");
+        System.out.println("                       Java 21. Pinned carriers can be traced with");
+        System.out.println("                       -Djdk.tracePinnedThreads=short.");
+        System.out.println("--sweep-threads [min:max]");
+        System.out.println("                       Run the workload once per number of threads, doubling");
+        System.out.println("                       from min to max, and flag the knee, after which more");
+        System.out.println("                       threads only add latency.");
+        System.out.println("--sweep-processes [min:max]");
+        System.out.println("                       Like --sweep-threads, for the number of processes.");
+        System.out.println("--agent [port]         Run as agent: listen on the port and run the workloads of");
+        System.out.println("                       a coordinator. All other options but --bind are ignored.");
+        System.out.println("--bind [address]       The address the agent listens on. Default is all");
+        System.out.println("                       interfaces. The agent runs the workload of any");
+        System.out.println("                       coordinator, run it on a trusted network only.");
+        System.out.println("--agents [host:port,...]");
+        System.out.println("                       Run as coordinator: split the workload among the agents,");
+        System.out.println("                       start them at the same time and merge their results. The");
+        System.out.println("                       paths must exist on the agents. Each agent runs the");
+        System.out.println("                       configured number of processes.");
+        System.out.println("--seed [int]           The seed for the random generator.");
+        System.out.println("--keep                 Do not delete the created files on exit.");
+        System.out.println("--engine [name]        The I/O engine: stream (java.io streams), channel");
+        System.out.println("                       (FileChannel with direct buffers), mmap");
+        System.out.println("                       (FileChannel.map) or async (AsynchronousFileChannel).");
+        System.out.println("                       Default is " + DEFAULT_ENGINE + ".");
+        System.out.println("--block-size [int]     The size of the buffer of each transfer. Default is");
+        System.out.println("                       " + DEFAULT_BLOCK_SIZE + ".");
+        System.out.println("--sweep-block-size [min:max]");
+        System.out.println("                       Run the workload once per block size, doubling from min");
+        System.out.println("                       to max, and print a table of the results.");
+        System.out.println("--map-size [int]       The size of one mapping window of the mmap engine.");
+        System.out.println("                       Default is " + DEFAULT_MAP_SIZE + ".");
+        System.out.println("--iodepth [int]        The number of transfers in flight per file of the async");
+        System.out.println("                       engine. Default is " + DEFAULT_IO_DEPTH + ".");
+        System.out.println("                       The random workload transfers one block at a time per");
+        System.out.println("                       thread and needs a depth of 1.");
+        System.out.println("--workload [name]      sequential: write, read and delete whole files.");
+        System.out.println("                       random: write the files, then write and read blocks at");
+        System.out.println("                       random positions (IOPS).");
+        System.out.println("                       mixed: write the files, then read and rewrite them");
+        System.out.println("                       concurrently.");
+        System.out.println("                       metadata: create, stat, list, rename, move and delete");
+        System.out.println("                       empty files, create and remove directories.");
+        System.out.println("                       Default is " + DEFAULT_WORKLOAD + ".");
+        System.out.println("--io-size [int]        The size of a block of the random workload.");
+        System.out.println("                       Default is the block size.");
+        System.out.println("--mix [read:write]     The ratio of reads to writes of the mixed workload.");
+        System.out.println("                       Default is " + DEFAULT_MIX + ".");
+        System.out.println("--duration [duration]  Repeat the workload until the duration has elapsed,");
+        System.out.println("                       instead of stopping after the total size. Supports ms,");
+        System.out.println("                       s, m. Default is none.");
+        System.out.println("--warmup [duration]    Run the workload for the specified duration before");
+        System.out.println("                       measuring, without reporting the results. Default is");
+        System.out.println("                       none.");
+        System.out.println("--interval [duration]  Record the throughput of each interval and print it as");
+        System.out.println("                       time series. Supports ms, s, m. Default is none.");
+        System.out.println("--depth [int]          Place the files in a tree of directories with the");
+        System.out.println("                       specified number of levels. Default is " + DEFAULT_DEPTH + ",");
+        System.out.println("                       all files directly in the paths.");
+        System.out.println("--fan-out [int]        The number of directories per level of the tree.");
+        System.out.println("                       Default is " + DEFAULT_FAN_OUT + ".");
+        System.out.println("--checksum [name]      The checksum of the transferred content: sha1, crc32c,");
+        System.out.println("                       xxhash64 or none. Default is " + DEFAULT_CHECKSUM + ".");
+        System.out.println("--sync [mode]          Force written data to the device: none, fdatasync (data");
+        System.out.println("                       only) or fsync (data and metadata). The time is reported");
+        System.out.println("                       as Sync, not as part of the write. Default is");
+        System.out.println("                       " + DEFAULT_SYNC + ".");
+        System.out.println("--sync-every [size]    Force the file each time the specified number of bytes");
+        System.out.println("                       has been written, not only when it is complete.");
+        System.out.println("--output [format]      The format of the report: text, json or csv. The json and");
+        System.out.println("                       csv reports contain the configuration, details of the JVM");
+        System.out.println("                       and the OS and all statistics. Default is " + DEFAULT_OUTPUT + ".");
+        System.out.println("--output-file [file]   Write the report to the file, print the text report and");
+        System.out.println("                       the progress to the console.");
+        System.out.println("--iterations [int]     Run the workload repeatedly and print a table of the");
+        System.out.println("                       iterations. Default is 1.");
+        System.out.println("--baseline [file]      Compare the run with a report written by --output json,");
+        System.out.println("                       exit with " + REGRESSION_EXIT_CODE + " if an operation regressed.");
+        System.out.println("                       Use --iterations on both runs for a significance test.");
+        System.out.println("--candidate [file]     Compare this report with the baseline, instead of running");
+        System.out.println("                       the workload.");
+        System.out.println("--threshold [percent]  The change of throughput or latency, that is considered");
+        System.out.println("                       a regression. Default is " + DEFAULT_THRESHOLD + ".");
+        System.out.println("--direct               Bypass the page cache (O_DIRECT). Only supported by the");
+        System.out.println("                       channel engine and by some file systems.");
+    }
+
+    private static long parseSize(String s)
+    {
+        int mult = 1;
+
+        if (s.endsWith("gb"))
+        {
+            mult = 1024 * 1024 * 1024;
+            s = s.substring(0, s.length() - 2);
+        }
+        else if (s.endsWith("mb"))
+        {
+            mult = 1024 * 1024;
+            s = s.substring(0, s.length() - 2);
+        }
+        else if (s.endsWith("kb"))
+        {
+            mult = 1024;
+            s = s.substring(0, s.length() - 2);
+        }
+        else if (s.endsWith("b"))
+        {
+            mult = 1;
+            s = s.substring(0, s.length() - 1);
+        }
+
+        try
+        {
+            return Long.parseLong(s) * mult;
+        }
+        catch (NumberFormatException e)
+        {
+            System.err.println("Failed to parse size argument: " + s);
+            System.exit(-1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Parses an optional range as min:max and returns the powers of two from min to max, min and max included. The
+     * values support the suffixes of sizes. Exits if the range is invalid.
+     */
+    private static List<Integer> parseRange(Optional<String> range, int limit)
+    {
+        List<Integer> values = new ArrayList<>();
+
+        if (!range.isPresent())
+        {
+            return values;
+        }
+
+        String[] chunks = range.get().split(":");
+        long min = chunks.length == 2 ? parseSize(chunks[0].trim()) : 0;
+        long max = chunks.length == 2 ? parseSize(chunks[1].trim()) : 0;
+
+        if (min < 1 || max < min || max > limit)
+        {
+            System.err.println("Invalid range: " + range.get());
+            System.exit(-1);
+        }
+
+        for (long value = min; value < max; value *= 2)
+        {
+            values.add((int) value);
+        }
+
+        values.add((int) max);
+
+        return values;
+    }
+
+    private static int parseMix(String s)
+    {
+        String[] chunks = s.split(":");
+
+        try
+        {
+            if (chunks.length == 2)
+            {
+                int reads = Integer.parseInt(chunks[0].trim());
+                int writes = Integer.parseInt(chunks[1].trim());
+
+                if (reads >= 0 && writes >= 0 && reads + writes > 0)
+                {
+                    return (int) Math.round(reads * 100d / (reads + writes));
+                }
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // handled below
+        }
+
+        System.err.println("Failed to parse mix argument: " + s);
+        System.exit(-1);
+
+        return -1;
+    }
+
+    private static double parsePercent(String s)
+    {
+        try
+        {
+            double percent = Double.parseDouble(s.endsWith("%") ? s.substring(0, s.length() - 1).trim() : s);
+
+            if (percent >= 0)
+            {
+                return percent / 100;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // handled below
+        }
+
+        System.err.println("Failed to parse percent argument: " + s);
+        System.exit(-1);
+
+        return -1;
+    }
+
+    private static long parseDuration(String s)
+    {
+        long mult = 1000000000;
+
+        if (s.endsWith("ns"))
+        {
+            mult = 1;
+            s = s.substring(0, s.length() - 2);
+        }
+        else if (s.endsWith("ms"))
+        {
+            mult = 1000000;
+            s = s.substring(0, s.length() - 2);
+        }
+        else if (s.endsWith("s"))
+        {
+            mult = 1000000000;
+            s = s.substring(0, s.length() - 1);
+        }
+        else if (s.endsWith("m"))
+        {
+            mult = 60 * 1000000000L;
+            s = s.substring(0, s.length() - 1);
+        }
+
+        try
+        {
+            return Long.parseLong(s) * mult;
+        }
+        catch (NumberFormatException e)
+        {
+            System.err.println("Failed to parse duration argument: " + s);
+            System.exit(-1);
+        }
+
+        return -1;
+    }
+
+    public static String formatSize(long size)
+    {
+        if (size >= 1024 * 1024 * 1024)
+        {
+            return String.format("%,.1f gb", size / (double) (1024 * 1024 * 1024));
+        }
+
+        if (size >= 1024 * 1024)
+        {
+            return String.format("%,.1f mb", size / (double) (1024 * 1024));
+        }
+
+        if (size >= 1024)
+        {
+            return String.format("%,.1f kb", size / 1024d);
+        }
+
+        return String.format("%,d b", size);
+    }
+
+    public static String formatDuration(long nanos)
+    {
+        if (nanos >= 1000000000)
+        {
+            return String.format("%,.2f s", nanos / 1000000000d);
+        }
+
+        if (nanos >= 1000000)
+        {
+            return String.format("%,.2f ms", nanos / 1000000d);
+        }
+
+        if (nanos >= 1000)
+        {
+            return String.format("%,.1f us", nanos / 1000d);
+        }
+
+        return String.format("%,d ns", nanos);
+    }
+}
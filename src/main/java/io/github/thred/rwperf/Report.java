@@ -0,0 +1,352 @@
+package io.github.thred.rwperf;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.thred.rwperf.Statistics.Average;
+import io.github.thred.rwperf.util.Histogram;
+import io.github.thred.rwperf.util.Json;
+
+/**
+ * The machine-readable report of one run or of all steps of a sweep. It contains every parameter of the
+ * configuration, details of the JVM and the OS and the statistics of each operation, in total and per path.
+ *
+ * Durations are in seconds, latencies in nanoseconds, throughputs in bytes per second. The throughput is the average
+ * of the threads, like in the text report, the total throughput is measured from the start of the first to the end of
+ * the last operation.
+ */
+public class Report
+{
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static class Run
+    {
+        private final String value;
+        private final Statistics statistics;
+        private final Statistics[] paths;
+
+        Run(String value, Statistics statistics, Statistics[] paths)
+        {
+            super();
+
+            this.value = value;
+            this.statistics = statistics;
+            this.paths = paths;
+        }
+    }
+
+    private final Configuration configuration;
+    private final String parameter;
+    private final List<Run> runs = new ArrayList<>();
+
+    /**
+     * Creates a report.
+     *
+     * @param configuration the configuration
+     * @param parameter the parameter of the sweep, null if there is just one run
+     */
+    public Report(Configuration configuration, String parameter)
+    {
+        super();
+
+        this.configuration = configuration;
+        this.parameter = parameter;
+    }
+
+    /**
+     * Adds a run.
+     *
+     * @param value the value of the parameter of the sweep, null if there is just one run
+     * @param statistics the statistics of all paths
+     * @param paths the statistics per path
+     */
+    public void add(String value, Statistics statistics, Statistics[] paths)
+    {
+        runs.add(new Run(value, statistics, paths));
+    }
+
+    public String format(Output output)
+    {
+        switch (output)
+        {
+            case Json:
+                return toJson();
+
+            case Csv:
+                return toCsv();
+
+            default:
+                throw new IllegalArgumentException("Unsupported output: " + output);
+        }
+    }
+
+    public String toJson()
+    {
+        return Json.write(toDocument()) + "\n";
+    }
+
+    /**
+     * Returns the report as nested maps and lists, as written by {@link #toJson()}.
+     *
+     * @return the document
+     */
+    public Map<String, Object> toDocument()
+    {
+        Map<String, Object> document = new LinkedHashMap<>();
+
+        document.put("timestamp", Instant.now().toString());
+        document.put("configuration", configuration.toProperties());
+        document.put("environment", environment());
+
+        if (parameter != null)
+        {
+            document.put("parameter", parameter);
+        }
+
+        List<Object> runs = new ArrayList<>();
+
+        for (Run run : this.runs)
+        {
+            Map<String, Object> map = new LinkedHashMap<>();
+
+            if (run.value != null)
+            {
+                map.put("value", run.value);
+            }
+
+            map.put("operations", operations(run.statistics));
+
+            List<Object> paths = new ArrayList<>();
+
+            for (int i = 0; i < run.paths.length; i++)
+            {
+                Map<String, Object> path = new LinkedHashMap<>();
+
+                path.put("path", configuration.getPaths().get(i).getAbsolutePath());
+                path.put("operations", operations(run.paths[i]));
+
+                paths.add(path);
+            }
+
+            map.put("paths", paths);
+
+            runs.add(map);
+        }
+
+        document.put("runs", runs);
+
+        return document;
+    }
+
+    /**
+     * Writes one row per run, path and operation. The path of the totals is empty. Sweeps add the value of the
+     * parameter as first column.
+     *
+     * @return the CSV
+     */
+    public String toCsv()
+    {
+        StringBuilder builder = new StringBuilder();
+        Map<String, Object> comments = new LinkedHashMap<>();
+
+        comments.put("timestamp", Instant.now().toString());
+        flatten(comments, "configuration.", configuration.toProperties());
+        flatten(comments, "environment.", environment());
+
+        if (parameter != null)
+        {
+            comments.put("parameter", parameter);
+        }
+
+        for (Map.Entry<String, Object> entry : comments.entrySet())
+        {
+            builder.append("# ").append(entry.getKey()).append("=").append(entry.getValue()).append("\n");
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+
+        for (Run run : runs)
+        {
+            addRows(rows, run, "", run.statistics);
+
+            for (int i = 0; i < run.paths.length; i++)
+            {
+                addRows(rows, run, configuration.getPaths().get(i).getAbsolutePath(), run.paths[i]);
+            }
+        }
+
+        if (rows.isEmpty())
+        {
+            return builder.toString();
+        }
+
+        builder.append(String.join(",", rows.get(0).keySet())).append("\n");
+
+        for (Map<String, Object> row : rows)
+        {
+            boolean first = true;
+
+            for (Object value : row.values())
+            {
+                if (!first)
+                {
+                    builder.append(",");
+                }
+
+                first = false;
+
+                appendCsv(builder, value);
+            }
+
+            builder.append("\n");
+        }
+
+        return builder.toString();
+    }
+
+    private void addRows(List<Map<String, Object>> rows, Run run, String path, Statistics statistics)
+    {
+        for (Map<String, Object> operation : operations(statistics))
+        {
+            Map<String, Object> row = new LinkedHashMap<>();
+
+            if (parameter != null)
+            {
+                row.put("value", run.value);
+            }
+
+            row.put("path", path);
+            flatten(row, "", operation);
+
+            rows.add(row);
+        }
+    }
+
+    private static List<Map<String, Object>> operations(Statistics statistics)
+    {
+        List<Map<String, Object>> operations = new ArrayList<>();
+
+        for (Average average : statistics.getAverages())
+        {
+            if (average.getCount() == 0)
+            {
+                continue;
+            }
+
+            Map<String, Object> map = new LinkedHashMap<>();
+
+            map.put("operation", average.getOperation().toString());
+            map.put("count", average.getCount());
+            map.put("failures", average.getFailures());
+            map.put("bytes", average.getSize());
+            map.put("duration", average.getDuration());
+            map.put("elapsed", average.getElapsed());
+            map.put("throughput", rate(average.getSize(), average.getDuration()));
+            map.put("opsPerSecond", rate(average.getCount(), average.getDuration()));
+            map.put("totalThroughput", rate(average.getSize(), average.getElapsed()));
+            map.put("totalOpsPerSecond", rate(average.getCount(), average.getElapsed()));
+            map.put("latency", percentiles(average.getLatency()));
+            map.put("fileThroughput", percentiles(average.getThroughput()));
+
+            operations.add(map);
+        }
+
+        return operations;
+    }
+
+    private static Double rate(double value, double seconds)
+    {
+        return seconds > 0 ? value / seconds : null;
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram)
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+
+        map.put("min", histogram.getMin());
+        map.put("mean", histogram.getMean());
+
+        for (double percentile : PERCENTILES)
+        {
+            map.put("p" + (percentile == (long) percentile ? String.valueOf((long) percentile) : percentile),
+                histogram.getValueAtPercentile(percentile));
+        }
+
+        map.put("max", histogram.getMax());
+
+        return map;
+    }
+
+    private static Map<String, Object> environment()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        Runtime runtime = Runtime.getRuntime();
+
+        map.put("javaVersion", System.getProperty("java.version"));
+        map.put("javaVendor", System.getProperty("java.vendor"));
+        map.put("vmName", System.getProperty("java.vm.name"));
+        map.put("vmVersion", System.getProperty("java.vm.version"));
+        map.put("vmArguments", ManagementFactory.getRuntimeMXBean().getInputArguments());
+        map.put("osName", System.getProperty("os.name"));
+        map.put("osVersion", System.getProperty("os.version"));
+        map.put("osArch", System.getProperty("os.arch"));
+        map.put("availableProcessors", runtime.availableProcessors());
+        map.put("maxMemory", runtime.maxMemory());
+        map.put("workingDirectory", new File("").getAbsolutePath());
+
+        return map;
+    }
+
+    /**
+     * Flattens nested maps by joining the keys with dots, for the columns of the CSV.
+     */
+    @SuppressWarnings("unchecked")
+    private static void flatten(Map<String, Object> target, String prefix, Map<String, ?> map)
+    {
+        for (Map.Entry<String, ?> entry : map.entrySet())
+        {
+            if (entry.getValue() instanceof Map)
+            {
+                flatten(target, prefix + entry.getKey() + ".", (Map<String, ?>) entry.getValue());
+            }
+            else if (entry.getValue() instanceof List)
+            {
+                List<String> values = new ArrayList<>();
+
+                ((List<?>) entry.getValue()).forEach(value -> values.add(String.valueOf(value)));
+
+                target.put(prefix + entry.getKey(), String.join(" ", values));
+            }
+            else
+            {
+                target.put(prefix + entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static void appendCsv(StringBuilder builder, Object value)
+    {
+        if (value == null)
+        {
+            return;
+        }
+
+        String s = String.valueOf(value);
+
+        if (s.contains(",") || s.contains("\"") || s.contains("\n"))
+        {
+            builder.append("\"").append(s.replace("\"", "\"\"")).append("\"");
+        }
+        else
+        {
+            builder.append(s);
+        }
+    }
+
+}
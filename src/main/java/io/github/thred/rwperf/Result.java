@@ -1,62 +1,88 @@
-package io.github.thred.rwperf;
-
-public class Result
-{
-
-    private final String name;
-    private final Operation operation;
-    private final long size;
-    private final String checksum;
-    private final double duration;
-    private final boolean success;
-
-    public Result(String name, Operation operation, long size, String checksum, double duration, boolean success)
-    {
-        super();
-        this.name = name;
-        this.operation = operation;
-        this.size = size;
-        this.checksum = checksum;
-        this.duration = duration;
-        this.success = success;
-    }
-
-    public String getName()
-    {
-        return name;
-    }
-
-    public Operation getOperation()
-    {
-        return operation;
-    }
-
-    public long getSize()
-    {
-        return size;
-    }
-
-    public String getChecksum()
-    {
-        return checksum;
-    }
-
-    public double getDuration()
-    {
-        return duration;
-    }
-
-    public boolean isSuccess()
-    {
-        return success;
-    }
-
-    @Override
-    public String toString()
-    {
-        return String
-            .format("%s (%s) of %s bytes [%s] in %s s: %s", name, operation, size, checksum, duration,
-                success ? "succeeded" : "failed");
-    }
-
-}
+package io.github.thred.rwperf;
+
+public class Result
+{
+
+    private final String name;
+    private final int path;
+    private final Operation operation;
+    private final long size;
+    private final String algorithm;
+    private final String checksum;
+    private final double duration;
+    private final boolean success;
+
+    public Result(String name, int path, Operation operation, long size, String algorithm, String checksum,
+        double duration, boolean success)
+    {
+        super();
+        this.name = name;
+        this.path = path;
+        this.operation = operation;
+        this.size = size;
+        this.algorithm = algorithm;
+        this.checksum = checksum;
+        this.duration = duration;
+        this.success = success;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the index of the path, that contains the file, within the configured paths.
+     *
+     * @return the index of the path
+     */
+    public int getPath()
+    {
+        return path;
+    }
+
+    public Operation getOperation()
+    {
+        return operation;
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the name of the algorithm of the checksum, as accepted by
+     * {@link io.github.thred.rwperf.util.Checksum#create(String)}.
+     *
+     * @return the name of the algorithm
+     */
+    public String getAlgorithm()
+    {
+        return algorithm;
+    }
+
+    public String getChecksum()
+    {
+        return checksum;
+    }
+
+    public double getDuration()
+    {
+        return duration;
+    }
+
+    public boolean isSuccess()
+    {
+        return success;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String
+            .format("%s (%s) of %s bytes [%s %s] in %s s: %s", name, operation, size, algorithm, checksum, duration,
+                success ? "succeeded" : "failed");
+    }
+
+}
@@ -1,27 +1,45 @@
-package io.github.thred.rwperf;
-
-public interface ResultConsumer
-{
-
-    void consume(Result result);
-
-    default void consume(String line)
-    {
-        if (line.startsWith("FINISH"))
-        {
-            return;
-        }
-
-        if (!line.startsWith("RESULT"))
-        {
-            System.out.println(line);
-            return;
-        }
-
-        String[] chunks = line.split("\\|");
-
-        consume(new Result(chunks[1].trim(), Operation.valueOf(chunks[2].trim()), Long.parseLong(chunks[3].trim()),
-            chunks[4].trim(), Double.parseDouble(chunks[5].trim()), Boolean.parseBoolean(chunks[6].trim())));
-    }
-
-}
+package io.github.thred.rwperf;
+
+public interface ResultConsumer
+{
+
+    void consume(Result result);
+
+    /**
+     * Consumes aggregated results, e.g. a snapshot of a subprocess.
+     *
+     * @param path the index of the path, the results belong to
+     * @param statistics the statistics
+     */
+    default void consume(int path, Statistics statistics)
+    {
+        throw new UnsupportedOperationException("Statistics not supported");
+    }
+
+    /**
+     * Called after the workload has been completed.
+     */
+    default void finish()
+    {
+        // nothing to do
+    }
+
+    default void consume(String line)
+    {
+        if (line.startsWith("FINISH"))
+        {
+            return;
+        }
+
+        if (line.startsWith(SnapshotResultConsumer.PREFIX))
+        {
+            String[] chunks = line.split("\\|", 3);
+
+            consume(Integer.parseInt(chunks[1].trim()), Statistics.decode(chunks[2]));
+            return;
+        }
+
+        System.out.println(line);
+    }
+
+}
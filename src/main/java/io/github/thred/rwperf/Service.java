@@ -1,170 +1,910 @@
-package io.github.thred.rwperf;
-
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-
-import io.github.thred.rwperf.util.Checksum;
-import io.github.thred.rwperf.util.Stopwatch;
-
-public class Service
-{
-
-    private static final int BUFFER_SIZE = 4096;
-
-    private final ResultConsumer consumer;
-    private final Pool pool;
-    private final List<File> paths;
-
-    private final List<Runnable> reads = new ArrayList<>();
-    private final List<Runnable> deletes = new ArrayList<>();
-
-    public Service(ResultConsumer consumer, List<File> paths, int threads)
-    {
-        super();
-
-        this.consumer = consumer;
-
-        pool = new Pool(threads);
-
-        this.paths = paths;
-    }
-
-    public void prepare(long size, long minSize, long maxSize, long seed, boolean delete)
-    {
-        Random random = new Random(seed);
-
-        while (size > 0)
-        {
-            size = prepareWrite(random, size, minSize, maxSize);
-        }
-
-        for (Runnable runnable : reads)
-        {
-            pool.execute(runnable);
-        }
-
-        if (delete)
-        {
-            for (Runnable runnable : deletes)
-            {
-                pool.execute(runnable);
-            }
-        }
-    }
-
-    public void shutdown() throws InterruptedException
-    {
-        pool.shutdown();
-    }
-
-    private long prepareWrite(Random random, long remainingSize, long minSize, long maxSize)
-    {
-        maxSize = Math.min(remainingSize, maxSize);
-
-        if (maxSize < minSize)
-        {
-            return 0;
-        }
-
-        File path = paths.get(random.nextInt(paths.size()));
-
-        int distance = (int) (maxSize - minSize);
-
-        if (distance > 0)
-        {
-            distance = random.nextInt((int) (maxSize - minSize));
-        }
-
-        long size = minSize + distance;
-        long seed = Math.abs(random.nextLong());
-        File file = new File(path, String.format("rwperf#%16s.dat", Long.toHexString(seed)).replace(' ', '0'));
-
-        pool.execute(() -> write(file, seed, (int) size));
-
-        reads.add(() -> read(file));
-        deletes.add(() -> delete(file));
-
-        return remainingSize - size;
-    }
-
-    private void write(File file, long seed, int size)
-    {
-        Random random = new Random(seed);
-        byte[] buffer = new byte[BUFFER_SIZE];
-        Checksum checksum = new Checksum();
-        Stopwatch stopwatch = Stopwatch.start();
-        boolean success = true;
-        int remaining = size;
-
-        try (FileOutputStream out = new FileOutputStream(file))
-        {
-            while (remaining > 0)
-            {
-                random.nextBytes(buffer);
-
-                int length = Math.min(remaining, BUFFER_SIZE);
-
-                out.write(buffer, 0, length);
-                checksum.update(buffer, 0, length);
-
-                remaining -= BUFFER_SIZE;
-            }
-        }
-        catch (IOException e)
-        {
-            e.printStackTrace(System.err);
-            success = false;
-        }
-
-        double duration = stopwatch.stop();
-        String checksumValue = checksum.complete();
-
-        consumer.consume(new Result(file.getName(), Operation.Write, size, checksumValue, duration, success));
-    }
-
-    private void read(File file)
-    {
-        byte[] buffer = new byte[BUFFER_SIZE];
-        Checksum checksum = new Checksum();
-        Stopwatch stopwatch = Stopwatch.start();
-        boolean success = true;
-        long size = 0;
-
-        try (FileInputStream in = new FileInputStream(file))
-        {
-            int length;
-
-            while ((length = in.read(buffer)) >= 0)
-            {
-                size += length;
-                checksum.update(buffer, 0, length);
-            }
-        }
-        catch (IOException e)
-        {
-            e.printStackTrace(System.err);
-            success = false;
-        }
-
-        double duration = stopwatch.stop();
-        String checksumValue = checksum.complete();
-
-        consumer.consume(new Result(file.getName(), Operation.Read, size, checksumValue, duration, success));
-    }
-
-    private void delete(File file)
-    {
-        Stopwatch stopwatch = Stopwatch.start();
-        long size = file.length();
-        boolean success = file.delete();
-        double duration = stopwatch.stop();
-
-        consumer.consume(new Result(file.getName(), Operation.Delete, size, "checksum", duration, success));
-    }
-
-}
+package io.github.thred.rwperf;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import io.github.thred.rwperf.FilePlan.Entry;
+import io.github.thred.rwperf.engine.BlockFile;
+import io.github.thred.rwperf.engine.Engine;
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+import io.github.thred.rwperf.util.Stopwatch;
+import io.github.thred.rwperf.util.Sync;
+
+public class Service
+{
+
+    private static final int BLOCKS_PER_TASK = 256;
+    private static final int FILES_PER_TASK = 16;
+    private static final int OPEN_FILES_PER_TASK = 16;
+
+    /**
+     * A timed metadata operation.
+     */
+    private interface Action
+    {
+        void run() throws IOException;
+    }
+
+    private interface FileAction
+    {
+        void run(Entry entry) throws IOException;
+    }
+
+    private interface FileTask
+    {
+        void run(Entry entry);
+    }
+
+    /**
+     * Submits the tasks of one path to the pool of the path.
+     */
+    private interface Submitter
+    {
+        void submit(int path, Pool pool) throws InterruptedException;
+    }
+
+    private final ResultConsumer consumer;
+    private final Engine engine;
+    private final Configuration configuration;
+    private final List<Pool> pools = new ArrayList<>();
+    private final List<File> paths;
+    private final Layout layout;
+
+    private FilePlan plan;
+
+    private volatile boolean measuring = true;
+    private volatile boolean bounded = false;
+    private volatile long deadline = 0;
+
+    public Service(ResultConsumer consumer, Engine engine, Configuration configuration)
+    {
+        super();
+
+        this.consumer = consumer;
+        this.engine = engine;
+        this.configuration = configuration;
+
+        paths = configuration.getPaths();
+
+        // each path gets its own pool, thus a slow device does not hold up the others
+        for (int i = 0; i < paths.size(); i++)
+        {
+            pools.add(new Pool(configuration.getThreads(), configuration.isVirtual()));
+        }
+
+        layout = new Layout(configuration.getDepth(), configuration.getFanOut(), configuration.getSeed());
+    }
+
+    /**
+     * Runs the configured workload. If a warmup is configured, the workload runs for the warmup period first, without
+     * reporting any results. If a duration is configured, the measured phase gets repeated until the deadline,
+     * otherwise it runs once.
+     *
+     * If the layout is not flat, the directories get created before and removed after the workload. Both are measured
+     * as separate phases.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    public void run() throws InterruptedException
+    {
+        if (configuration.getWorkload() == Workload.Metadata)
+        {
+            // the metadata workload creates the directories with each round
+            runMetadata();
+            return;
+        }
+
+        startPhase(0, true);
+        prepareDirectories(paths);
+
+        switch (configuration.getWorkload())
+        {
+            case Random:
+                runRandom();
+                break;
+
+            case Mixed:
+                runMixed();
+                break;
+
+            default:
+                runSequential();
+                break;
+        }
+
+        if (!configuration.isKeep())
+        {
+            startPhase(0, true);
+            prepareRemoveDirectories(paths);
+        }
+    }
+
+    /**
+     * Writes, reads and deletes the files, one phase after another.
+     */
+    private void runSequential() throws InterruptedException
+    {
+        Random random = new Random(configuration.getSeed());
+
+        if (configuration.getWarmup() > 0)
+        {
+            startPhase(configuration.getWarmup(), false);
+
+            do
+            {
+                sequential(random);
+            }
+            while (!expired());
+        }
+
+        startPhase(configuration.getDuration(), true);
+
+        do
+        {
+            sequential(random);
+        }
+        while (bounded && !expired());
+    }
+
+    private void sequential(Random random) throws InterruptedException
+    {
+        prepareWrites(random);
+
+        prepareFiles(entry -> read(entry, Operation.Read));
+
+        if (!configuration.isKeep())
+        {
+            prepareDeletes();
+        }
+    }
+
+    /**
+     * Writes the files like the sequential workload, but then writes and reads blocks at random, aligned positions
+     * within the files. The number of blocks is calculated from the total size and split between the paths by their
+     * number of files. The blocks are split into tasks, each with its own seed, thus the positions and the content do
+     * not depend on the number of threads. The tasks pick the files from the plan and keep only a few of them open,
+     * thus neither the memory nor the open files depend on the number of files.
+     */
+    private void runRandom() throws InterruptedException
+    {
+        Random random = new Random(configuration.getSeed());
+        int ioSize = configuration.getIoSize();
+        long count = configuration.getSize() / ioSize;
+
+        prepareWrites(random);
+
+        long[] counts = countFiles(ioSize);
+
+        if (LongStream.of(counts).sum() == 0)
+        {
+            System.err.println("There is no file with at least " + RWPerf.formatSize(ioSize) + ".");
+        }
+        else
+        {
+            if (configuration.getWarmup() > 0)
+            {
+                startPhase(configuration.getWarmup(), false);
+                prepareBlocks(Operation.RandomWrite, counts, random, count, ioSize);
+
+                startPhase(configuration.getWarmup(), false);
+                prepareBlocks(Operation.RandomRead, counts, random, count, ioSize);
+            }
+
+            startPhase(configuration.getDuration(), true);
+            prepareBlocks(Operation.RandomWrite, counts, random, count, ioSize);
+
+            startPhase(configuration.getDuration(), true);
+            prepareBlocks(Operation.RandomRead, counts, random, count, ioSize);
+        }
+
+        if (!configuration.isKeep())
+        {
+            prepareDeletes();
+        }
+    }
+
+    /**
+     * Writes the files like the sequential workload, but then reads and rewrites whole files concurrently. Each thread
+     * picks a random file of its path and reads it with the configured probability, otherwise it rewrites the file
+     * with new content. Without a duration, the number of operations equals the number of files.
+     */
+    private void runMixed() throws InterruptedException
+    {
+        Random random = new Random(configuration.getSeed());
+
+        prepareWrites(random);
+
+        if (configuration.getWarmup() > 0)
+        {
+            startPhase(configuration.getWarmup(), false);
+            prepareMixed(random);
+        }
+
+        startPhase(configuration.getDuration(), true);
+        prepareMixed(random);
+
+        if (!configuration.isKeep())
+        {
+            prepareDeletes();
+        }
+    }
+
+    /**
+     * Measures metadata operations on empty files and directories, one phase after another: create files, create
+     * directories, read attributes, list the directories, rename the files, move them to another directory, remove
+     * the directories and delete the files. Each path gets a source and a target directory for the round.
+     */
+    private void runMetadata() throws InterruptedException
+    {
+        Random random = new Random(configuration.getSeed());
+
+        if (configuration.getWarmup() > 0)
+        {
+            startPhase(configuration.getWarmup(), false);
+
+            do
+            {
+                metadata(random);
+            }
+            while (!expired());
+        }
+
+        startPhase(configuration.getDuration(), true);
+
+        do
+        {
+            metadata(random);
+        }
+        while (bounded && !expired());
+    }
+
+    private void metadata(Random random) throws InterruptedException
+    {
+        long id = random.nextLong() & Long.MAX_VALUE;
+        List<File> sources = new ArrayList<>();
+        List<File> targets = new ArrayList<>();
+
+        for (File path : paths)
+        {
+            File source = new File(path, String.format("rwperf#%016x.src", id));
+            File target = new File(path, String.format("rwperf#%016x.dst", id));
+
+            if (!source.mkdir() || !target.mkdir())
+            {
+                System.err.println("Failed to create directories in " + path.getAbsolutePath());
+            }
+
+            sources.add(source);
+            targets.add(target);
+        }
+
+        plan = new FilePlan(random.nextLong(), configuration.getSize(), configuration.getMinSize(),
+            configuration.getMaxSize(), sources, layout);
+
+        prepareDirectories(sources);
+        prepareDirectories(targets);
+        prepareMetadata(Operation.Create, entry -> Files.createFile(entry.getFile().toPath()));
+        prepareMetadata(Operation.Mkdir, entry -> Files.createDirectory(directory(entry).toPath()));
+        prepareMetadata(Operation.Stat,
+            entry -> Files.readAttributes(entry.getFile().toPath(), BasicFileAttributes.class));
+
+        submit((path, pool) -> {
+            File source = sources.get(path);
+
+            pool.execute(() -> metadata(Operation.List, path, source, () -> list(source.toPath())));
+        });
+
+        prepareMetadata(Operation.Rename, entry -> Files.move(entry.getFile().toPath(), renamed(entry).toPath()));
+        prepareMetadata(Operation.Move,
+            entry -> Files.move(renamed(entry).toPath(), moved(entry, targets).toPath()));
+
+        if (configuration.isKeep())
+        {
+            return;
+        }
+
+        prepareMetadata(Operation.Rmdir, entry -> Files.delete(directory(entry).toPath()));
+        prepareMetadata(Operation.Delete, entry -> Files.delete(moved(entry, targets).toPath()));
+        prepareRemoveDirectories(sources);
+        prepareRemoveDirectories(targets);
+
+        // remove whatever is left over, e.g. if the deadline has been reached
+        for (File directory : sources)
+        {
+            remove(directory);
+        }
+
+        for (File directory : targets)
+        {
+            remove(directory);
+        }
+    }
+
+    /**
+     * Creates the directories of the layout, level by level.
+     */
+    private void prepareDirectories(List<File> roots) throws InterruptedException
+    {
+        if (layout.isFlat())
+        {
+            return;
+        }
+
+        submit((path, pool) -> {
+            for (int level = 0; level <= layout.getDepth(); level++)
+            {
+                for (long i = 0; i < layout.getCount(level); i++)
+                {
+                    File directory = layout.getDirectory(roots.get(path), level, i);
+
+                    throttle(pool);
+                    pool.execute(() -> metadata(Operation.Mkdir, path, directory,
+                        () -> Files.createDirectory(directory.toPath())));
+                }
+
+                pool.await();
+            }
+        });
+    }
+
+    /**
+     * Removes the directories of the layout, deepest level first.
+     */
+    private void prepareRemoveDirectories(List<File> roots) throws InterruptedException
+    {
+        if (layout.isFlat())
+        {
+            return;
+        }
+
+        submit((path, pool) -> {
+            for (int level = layout.getDepth(); level >= 0; level--)
+            {
+                for (long i = 0; i < layout.getCount(level); i++)
+                {
+                    File directory = layout.getDirectory(roots.get(path), level, i);
+
+                    throttle(pool);
+                    pool.execute(
+                        () -> metadata(Operation.Rmdir, path, directory, () -> Files.delete(directory.toPath())));
+                }
+
+                pool.await();
+            }
+        });
+    }
+
+    private void prepareMetadata(Operation operation, FileAction action) throws InterruptedException
+    {
+        prepareFiles(entry -> metadata(operation, entry.getPathIndex(), entry.getFile(), () -> action.run(entry)));
+    }
+
+    private static File directory(Entry entry)
+    {
+        return new File(entry.getFile().getPath() + ".d");
+    }
+
+    private static File renamed(Entry entry)
+    {
+        return new File(entry.getFile().getPath() + ".renamed");
+    }
+
+    private static File moved(Entry entry, List<File> targets)
+    {
+        File target = targets.get(entry.getPathIndex());
+
+        return target.toPath().resolve(entry.getPath().toPath().relativize(entry.getFile().toPath())).toFile();
+    }
+
+    private static void list(Path directory) throws IOException
+    {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory))
+        {
+            stream.forEach(path -> {
+                // the entries are read, but not used
+            });
+        }
+    }
+
+    private static void remove(File directory)
+    {
+        File[] files = directory.listFiles();
+
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                if (file.isDirectory())
+                {
+                    remove(file);
+                }
+                else if (!file.delete())
+                {
+                    System.err.println("Failed to delete " + file.getAbsolutePath());
+                }
+            }
+        }
+
+        if (directory.exists() && !directory.delete())
+        {
+            System.err.println("Failed to delete " + directory.getAbsolutePath());
+        }
+    }
+
+    public void shutdown() throws InterruptedException
+    {
+        for (Pool pool : pools)
+        {
+            pool.shutdown();
+        }
+    }
+
+    private void startPhase(long duration, boolean measuring)
+    {
+        this.measuring = measuring;
+
+        bounded = duration > 0;
+        deadline = System.nanoTime() + duration;
+    }
+
+    private boolean expired()
+    {
+        return bounded && System.nanoTime() - deadline >= 0;
+    }
+
+    private void report(Result result)
+    {
+        if (measuring)
+        {
+            consumer.consume(result);
+        }
+    }
+
+    /**
+     * Reports a write. The time spent generating the content is reported as {@link Operation#Generate}, the time spent
+     * forcing it to the device has been reported as {@link Operation#Sync} by the sync. Neither is included in the
+     * duration of the write.
+     */
+    private void report(String name, int path, Operation operation, long size, String algorithm, String checksum,
+        double duration, Generator generator, long generatorNanos, Sync sync, boolean success)
+    {
+        double generation = (generator.getNanos() - generatorNanos) / 1000000000d;
+        double syncing = sync.getNanos() / 1000000000d;
+
+        report(new Result(name, path, Operation.Generate, size, Checksum.NONE, "-", generation, true));
+        report(new Result(name, path, operation, size, algorithm, checksum,
+            Math.max(duration - generation - syncing, 0), success));
+    }
+
+    private Sync sync(String name, int path)
+    {
+        return new Sync(configuration.getSync(), configuration.getSyncEvery(),
+            (size, nanos) -> report(
+                new Result(name, path, Operation.Sync, size, Checksum.NONE, "-", nanos / 1000000000d, true)));
+    }
+
+    /**
+     * Calls the submitter for each path in a thread of its own, thus a path, whose pool is busy, does not hold up the
+     * submission of tasks to the others. Returns after all submitted tasks have been executed.
+     */
+    private void submit(Submitter submitter) throws InterruptedException
+    {
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < pools.size(); i++)
+        {
+            int path = i;
+            Pool pool = pools.get(i);
+            Thread thread = new Thread(() -> {
+                try
+                {
+                    submitter.submit(path, pool);
+                    pool.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Submitter-" + path);
+
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+    }
+
+    /**
+     * Executes the task for each file of the plan in the pool of the path of the file. Each submitter regenerates the
+     * whole plan and skips the files of the other paths.
+     */
+    private void prepareFiles(FileTask task) throws InterruptedException
+    {
+        submit((path, pool) -> {
+            for (long i = 0; i < plan.getCount(); i++)
+            {
+                Entry entry = plan.get(i);
+
+                if (entry.getPathIndex() == path)
+                {
+                    throttle(pool);
+                    pool.execute(() -> task.run(entry));
+                }
+            }
+        });
+    }
+
+    /**
+     * Counts the files of the plan with at least the specified size per path.
+     */
+    private long[] countFiles(long minSize)
+    {
+        long[] counts = new long[paths.size()];
+
+        for (long i = 0; i < plan.getCount(); i++)
+        {
+            Entry entry = plan.get(i);
+
+            if (entry.getSize() >= minSize)
+            {
+                counts[entry.getPathIndex()]++;
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Limits the number of queued tasks, thus tasks submitted for a bounded phase do not pile up beyond the deadline.
+     */
+    private void throttle(Pool pool) throws InterruptedException
+    {
+        pool.awaitPending(configuration.getThreads() * 2);
+    }
+
+    /**
+     * Writes the files of a new plan. The plan is regenerated file by file, and the number of queued tasks is
+     * throttled, thus the memory does not depend on the number of files.
+     */
+    private void prepareWrites(Random random) throws InterruptedException
+    {
+        plan = new FilePlan(random.nextLong(), configuration.getSize(), configuration.getMinSize(),
+            configuration.getMaxSize(), paths, layout);
+
+        prepareFiles(entry -> write(entry, entry.getSeed(), Operation.Write));
+    }
+
+    private void prepareDeletes() throws InterruptedException
+    {
+        prepareFiles(this::delete);
+    }
+
+    private void prepareBlocks(Operation operation, long[] counts, Random random, long count, int ioSize)
+        throws InterruptedException
+    {
+        long total = LongStream.of(counts).sum();
+        long seed = random.nextLong();
+
+        submit((path, pool) -> {
+            Random pathRandom = new Random(seed + path);
+            long remaining = count * counts[path] / total;
+
+            while (counts[path] > 0 && (bounded ? !expired() : remaining > 0))
+            {
+                long taskSeed = pathRandom.nextLong();
+                int blocks = bounded ? BLOCKS_PER_TASK : (int) Math.min(remaining, BLOCKS_PER_TASK);
+
+                throttle(pool);
+                pool.execute(() -> blocks(operation, path, taskSeed, blocks, ioSize));
+
+                remaining -= blocks;
+            }
+        });
+    }
+
+    private void prepareMixed(Random random) throws InterruptedException
+    {
+        int readPercent = configuration.getReadPercent();
+        long[] counts = countFiles(0);
+        long seed = random.nextLong();
+
+        submit((path, pool) -> {
+            Random pathRandom = new Random(seed + path);
+            long remaining = counts[path];
+
+            while (counts[path] > 0 && (bounded ? !expired() : remaining > 0))
+            {
+                long taskSeed = pathRandom.nextLong();
+                int files = bounded ? FILES_PER_TASK : (int) Math.min(remaining, FILES_PER_TASK);
+
+                throttle(pool);
+                pool.execute(() -> mixed(path, taskSeed, files, readPercent));
+
+                remaining -= files;
+            }
+        });
+    }
+
+    private void write(Entry entry, long seed, Operation operation)
+    {
+        if (expired())
+        {
+            return;
+        }
+
+        File file = entry.getFile();
+        long size = entry.getSize();
+        Generator generator = new Generator(seed);
+        Checksum checksum = Checksum.create(configuration.getChecksum());
+        Sync sync = sync(file.getName(), entry.getPathIndex());
+        Stopwatch stopwatch = Stopwatch.start();
+        boolean success = true;
+
+        try
+        {
+            engine.write(file, generator, size, checksum, sync);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace(System.err);
+            success = false;
+        }
+
+        double duration = stopwatch.stop();
+        String checksumValue = checksum.complete();
+
+        report(file.getName(), entry.getPathIndex(), operation, size, checksum.getAlgorithm(), checksumValue, duration,
+            generator, 0, sync, success);
+    }
+
+    private void read(Entry entry, Operation operation)
+    {
+        if (expired())
+        {
+            return;
+        }
+
+        File file = entry.getFile();
+        Checksum checksum = Checksum.create(configuration.getChecksum());
+        Stopwatch stopwatch = Stopwatch.start();
+        boolean success = true;
+        long size = 0;
+
+        try
+        {
+            size = engine.read(file, checksum);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace(System.err);
+            success = false;
+        }
+
+        double duration = stopwatch.stop();
+        String checksumValue = checksum.complete();
+
+        report(new Result(file.getName(), entry.getPathIndex(), operation, size, checksum.getAlgorithm(), checksumValue,
+            duration, success));
+    }
+
+    private void mixed(int path, long seed, int count, int readPercent)
+    {
+        Random random = new Random(seed);
+
+        for (int i = 0; i < count && !expired(); i++)
+        {
+            Entry entry;
+
+            do
+            {
+                entry = plan.get(Math.floorMod(random.nextLong(), plan.getCount()));
+            }
+            while (entry.getPathIndex() != path);
+
+            if (random.nextInt(100) < readPercent)
+            {
+                read(entry, Operation.MixedRead);
+            }
+            else
+            {
+                write(entry, random.nextLong(), Operation.MixedWrite);
+            }
+        }
+    }
+
+    /**
+     * Writes or reads blocks of random files of the path. The files are opened outside of the measurement, only the
+     * most recently used ones stay open.
+     */
+    private void blocks(Operation operation, int path, long seed, int count, int ioSize)
+    {
+        Random random = new Random(seed);
+        Generator generator = new Generator(random.nextLong());
+        Map<Long, BlockFile> blockFiles = new LinkedHashMap<>(OPEN_FILES_PER_TASK, 0.75f, true);
+
+        try
+        {
+            for (int i = 0; i < count && !expired(); i++)
+            {
+                long index;
+                Entry entry;
+
+                do
+                {
+                    index = Math.floorMod(random.nextLong(), plan.getCount());
+                    entry = plan.get(index);
+                }
+                while (entry.getPathIndex() != path || entry.getSize() < ioSize);
+
+                long position = (long) random.nextInt((int) (entry.getSize() / ioSize)) * ioSize;
+                BlockFile blockFile;
+
+                try
+                {
+                    blockFile = open(blockFiles, index, entry);
+                }
+                catch (IOException e)
+                {
+                    e.printStackTrace(System.err);
+                    report(new Result(entry.getFile().getName(), path, operation, 0, Checksum.NONE, "-", 0, false));
+                    continue;
+                }
+
+                block(operation, path, blockFile, position, ioSize, generator);
+            }
+        }
+        finally
+        {
+            blockFiles.values().forEach(this::close);
+        }
+    }
+
+    /**
+     * Returns the open block file of the entry. Opens the file, if necessary, and closes the least recently used one,
+     * if there are too many open files.
+     */
+    private BlockFile open(Map<Long, BlockFile> blockFiles, long index, Entry entry) throws IOException
+    {
+        BlockFile blockFile = blockFiles.get(index);
+
+        if (blockFile == null)
+        {
+            if (blockFiles.size() >= OPEN_FILES_PER_TASK)
+            {
+                Iterator<BlockFile> iterator = blockFiles.values().iterator();
+
+                close(iterator.next());
+                iterator.remove();
+            }
+
+            blockFile = engine.open(entry.getFile());
+            blockFiles.put(index, blockFile);
+        }
+
+        return blockFile;
+    }
+
+    private void close(BlockFile blockFile)
+    {
+        try
+        {
+            blockFile.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace(System.err);
+        }
+    }
+
+    private void block(Operation operation, int path, BlockFile blockFile, long position, int ioSize,
+        Generator generator)
+    {
+        Checksum checksum = Checksum.create(configuration.getChecksum());
+        // blocks are forced one by one, there is no data pending beyond a single block
+        Sync sync = sync(blockFile.getFile().getName(), path);
+        long generatorNanos = generator.getNanos();
+        Stopwatch stopwatch = Stopwatch.start();
+        boolean success = true;
+
+        try
+        {
+            if (operation == Operation.RandomWrite)
+            {
+                blockFile.write(position, ioSize, generator, checksum, sync);
+            }
+            else
+            {
+                blockFile.read(position, ioSize, checksum);
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace(System.err);
+            success = false;
+        }
+
+        double duration = stopwatch.stop();
+        String checksumValue = checksum.complete();
+
+        if (operation == Operation.RandomWrite)
+        {
+            report(blockFile.getFile().getName(), path, operation, ioSize, checksum.getAlgorithm(), checksumValue,
+                duration, generator, generatorNanos, sync, success);
+        }
+        else
+        {
+            report(new Result(blockFile.getFile().getName(), path, operation, ioSize, checksum.getAlgorithm(),
+                checksumValue, duration, success));
+        }
+    }
+
+    /**
+     * Times one metadata action of the file. The action gets skipped after the deadline.
+     */
+    private void metadata(Operation operation, int path, File file, Action action)
+    {
+        if (expired())
+        {
+            return;
+        }
+
+        Stopwatch stopwatch = Stopwatch.start();
+        boolean success = true;
+
+        try
+        {
+            action.run();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace(System.err);
+            success = false;
+        }
+
+        double duration = stopwatch.stop();
+
+        report(new Result(file.getName(), path, operation, 0, Checksum.NONE, "-", duration, success));
+    }
+
+    /**
+     * Deletes the file, if it has been written. Deletes are cleanup, too, thus they get executed even after the
+     * deadline, but not reported.
+     */
+    private void delete(Entry entry)
+    {
+        File file = entry.getFile();
+
+        if (!file.exists())
+        {
+            return;
+        }
+
+        boolean expired = expired();
+        Stopwatch stopwatch = Stopwatch.start();
+        long size = file.length();
+        boolean success = file.delete();
+        double duration = stopwatch.stop();
+
+        if (!expired)
+        {
+            report(new Result(file.getName(), entry.getPathIndex(), Operation.Delete, size, Checksum.NONE, "-",
+                duration, success));
+        }
+    }
+
+}
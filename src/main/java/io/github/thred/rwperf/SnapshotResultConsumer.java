@@ -0,0 +1,102 @@
+package io.github.thred.rwperf;
+
+/**
+ * Aggregates the results of a subprocess and periodically prints the aggregated {@link Statistics} of each path since
+ * the last snapshot as single line. The parent process merges the snapshots, thus it does not have to parse one line
+ * per file.
+ */
+public class SnapshotResultConsumer implements ResultConsumer, Runnable
+{
+
+    public static final String PREFIX = "SNAPSHOT";
+
+    private final long period;
+    private final Thread thread;
+    private final Accumulator accumulator;
+
+    private volatile boolean finished = false;
+
+    public SnapshotResultConsumer(long period, int paths)
+    {
+        super();
+
+        this.period = period;
+
+        accumulator = new Accumulator(0, paths);
+
+        thread = new Thread(this, "SnapshotResultConsumer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void consume(Result result)
+    {
+        accumulator.consume(result);
+    }
+
+    /**
+     * Consumes the snapshots of the processes of an agent.
+     */
+    @Override
+    public void consume(int path, Statistics statistics)
+    {
+        accumulator.consume(path, statistics);
+    }
+
+    @Override
+    public void run()
+    {
+        while (!finished)
+        {
+            try
+            {
+                Thread.sleep(period / 1000000, (int) (period % 1000000));
+            }
+            catch (InterruptedException e)
+            {
+                break;
+            }
+
+            flush();
+        }
+    }
+
+    @Override
+    public void finish()
+    {
+        finished = true;
+        thread.interrupt();
+
+        try
+        {
+            thread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+
+    private void flush()
+    {
+        Statistics[] snapshots = accumulator.drain();
+
+        for (int path = 0; path < snapshots.length; path++)
+        {
+            if (!snapshots[path].isEmpty())
+            {
+                System.out.println(PREFIX + " | " + path + " | " + snapshots[path].encode());
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FINISHED";
+    }
+
+}
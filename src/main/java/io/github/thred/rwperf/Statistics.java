@@ -0,0 +1,321 @@
+package io.github.thred.rwperf;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import io.github.thred.rwperf.util.Histogram;
+import io.github.thred.rwperf.util.Stopwatch;
+
+/**
+ * Aggregated results per {@link Operation}. Statistics can be merged without losing precision, thus subprocesses
+ * aggregate their results locally and send encoded snapshots to the parent process.
+ *
+ * The averages of an operation are created with the first result, thus statistics are cheap to keep per thread. The
+ * statistics are not thread-safe.
+ */
+public class Statistics
+{
+
+    public static class Average
+    {
+        private final Operation operation;
+        private final Histogram latency;
+        private final Histogram throughput;
+
+        private long size = 0;
+        private long count = 0;
+        private long failures = 0;
+        private double duration = 0;
+        private long first = Long.MAX_VALUE;
+        private long last = Long.MIN_VALUE;
+
+        public Average(Operation operation)
+        {
+            this(operation, new Histogram(), new Histogram());
+        }
+
+        private Average(Operation operation, Histogram latency, Histogram throughput)
+        {
+            super();
+
+            this.operation = operation;
+            this.latency = latency;
+            this.throughput = throughput;
+        }
+
+        /**
+         * Consumes a result, that has just completed.
+         *
+         * @param result the result
+         */
+        public void consume(Result result)
+        {
+            long end = Stopwatch.epochNanos();
+
+            first = Math.min(first, end - (long) (result.getDuration() * 1000000000d));
+            last = Math.max(last, end);
+            size += result.getSize();
+            count++;
+            duration += result.getDuration();
+
+            if (!result.isSuccess())
+            {
+                failures++;
+            }
+
+            latency.record((long) (result.getDuration() * 1000000000d));
+
+            if (result.getDuration() > 0)
+            {
+                throughput.record((long) (result.getSize() / result.getDuration()));
+            }
+        }
+
+        public void add(Average average)
+        {
+            size += average.size;
+            count += average.count;
+            failures += average.failures;
+            duration += average.duration;
+            first = Math.min(first, average.first);
+            last = Math.max(last, average.last);
+
+            latency.add(average.latency);
+            throughput.add(average.throughput);
+        }
+
+        public Operation getOperation()
+        {
+            return operation;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+
+        public long getFailures()
+        {
+            return failures;
+        }
+
+        public double getDuration()
+        {
+            return duration;
+        }
+
+        /**
+         * Returns the time from the start of the first to the end of the last operation. Unlike the duration, which
+         * sums up the operations, this is the wall-clock time of all threads and processes together.
+         *
+         * @return the time in seconds, 0 if there are no results
+         */
+        public double getElapsed()
+        {
+            return count > 0 ? (last - first) / 1000000000d : 0;
+        }
+
+        public Histogram getLatency()
+        {
+            return latency;
+        }
+
+        public Histogram getThroughput()
+        {
+            return throughput;
+        }
+
+        public String toLatencyString(String format)
+        {
+            return String
+                .format(format, operation, RWPerf.formatDuration(latency.getMin()),
+                    RWPerf.formatDuration(latency.getValueAtPercentile(50)),
+                    RWPerf.formatDuration(latency.getValueAtPercentile(90)),
+                    RWPerf.formatDuration(latency.getValueAtPercentile(99)),
+                    RWPerf.formatDuration(latency.getValueAtPercentile(99.9)),
+                    RWPerf.formatDuration(latency.getMax()));
+        }
+
+        public String toThroughputString(String format)
+        {
+            return String
+                .format(format, operation, RWPerf.formatSize(throughput.getMin()) + "/s",
+                    RWPerf.formatSize(throughput.getValueAtPercentile(50)) + "/s",
+                    RWPerf.formatSize(throughput.getValueAtPercentile(90)) + "/s",
+                    RWPerf.formatSize(throughput.getValueAtPercentile(99)) + "/s",
+                    RWPerf.formatSize(throughput.getValueAtPercentile(99.9)) + "/s",
+                    RWPerf.formatSize(throughput.getMax()) + "/s");
+        }
+
+        /**
+         * Returns the average throughput of one thread, the sizes over the summed up durations, followed by the total
+         * throughput and op/s of all threads, measured over the elapsed time like in the {@link Sweep}.
+         */
+        @Override
+        public String toString()
+        {
+            long result = (long) (size / duration);
+            String op = operation.toString() + " avg:";
+            double elapsed = getElapsed();
+
+            String throughput = size > 0 ? RWPerf.formatSize(result) + "/s" : "";
+            String total = size > 0 && elapsed > 0 ? RWPerf.formatSize((long) (size / elapsed)) + "/s" : "";
+            String ops = elapsed > 0 ? String.format("%,.1f op/s", count / elapsed) : "";
+
+            return String.format("%-20s%-14s%-21s%s", op, throughput, "total: " + total, ops);
+        }
+    }
+
+    /**
+     * Parses statistics encoded by {@link #encode()}.
+     *
+     * @param s the encoded statistics
+     * @return the statistics
+     * @throws IllegalArgumentException if the string cannot be parsed
+     */
+    public static Statistics decode(String s)
+    {
+        Statistics statistics = new Statistics();
+
+        for (String chunk : s.trim().split("\\s+"))
+        {
+            if (chunk.isEmpty())
+            {
+                continue;
+            }
+
+            String[] parts = chunk.split(";");
+
+            if (parts.length != 5)
+            {
+                throw new IllegalArgumentException("Invalid statistics: " + chunk);
+            }
+
+            Operation operation = Operation.valueOf(parts[0]);
+            Average average = new Average(operation, Histogram.decode(parts[3]), Histogram.decode(parts[4]));
+            String[] values = parts[1].split(",");
+
+            try
+            {
+                average.size = Long.parseLong(values[0]);
+                average.count = Long.parseLong(values[1]);
+                average.failures = Long.parseLong(values[2]);
+                average.first = Long.parseLong(values[3]);
+                average.last = Long.parseLong(values[4]);
+                average.duration = Double.parseDouble(parts[2]);
+            }
+            catch (RuntimeException e)
+            {
+                throw new IllegalArgumentException("Invalid statistics: " + chunk, e);
+            }
+
+            statistics.average(operation).add(average);
+        }
+
+        return statistics;
+    }
+
+    private final Map<Operation, Average> averages = new EnumMap<>(Operation.class);
+
+    public Statistics()
+    {
+        super();
+    }
+
+    public void consume(Result result)
+    {
+        average(result.getOperation()).consume(result);
+    }
+
+    public void add(Statistics statistics)
+    {
+        for (Average average : statistics.averages.values())
+        {
+            average(average.getOperation()).add(average);
+        }
+    }
+
+    /**
+     * Returns the average of the operation, an empty one if the operation has not been used.
+     *
+     * @param operation the operation
+     * @return the average
+     */
+    public Average get(Operation operation)
+    {
+        Average average = averages.get(operation);
+
+        return average != null ? average : new Average(operation);
+    }
+
+    /**
+     * Returns the averages of all operations, that have been used, in the order of the operations.
+     *
+     * @return the averages
+     */
+    public Iterable<Average> getAverages()
+    {
+        return averages.values();
+    }
+
+    public boolean isEmpty()
+    {
+        return averages.values().stream().allMatch(average -> average.count == 0);
+    }
+
+    private Average average(Operation operation)
+    {
+        return averages.computeIfAbsent(operation, Average::new);
+    }
+
+    /**
+     * Encodes the statistics as single line. Each operation with results is encoded as
+     * operation;size,count,failures,first,last;duration;latency;throughput, separated by spaces.
+     *
+     * @return the encoded statistics
+     */
+    public String encode()
+    {
+        StringBuilder builder = new StringBuilder();
+
+        for (Average average : averages.values())
+        {
+            if (average.count == 0)
+            {
+                continue;
+            }
+
+            if (builder.length() > 0)
+            {
+                builder.append(" ");
+            }
+
+            builder
+                .append(average.operation)
+                .append(";")
+                .append(average.size)
+                .append(",")
+                .append(average.count)
+                .append(",")
+                .append(average.failures)
+                .append(",")
+                .append(average.first)
+                .append(",")
+                .append(average.last)
+                .append(";")
+                .append(average.duration)
+                .append(";")
+                .append(average.latency.encode())
+                .append(";")
+                .append(average.throughput.encode());
+        }
+
+        return builder.toString();
+    }
+
+}
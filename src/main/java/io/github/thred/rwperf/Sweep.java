@@ -0,0 +1,174 @@
+package io.github.thred.rwperf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.thred.rwperf.Statistics.Average;
+
+/**
+ * The results of running the same workload once per value of a parameter, printed as table of the values and the
+ * operations. Throughput and op/s are the totals of all threads and processes, measured from the start of the first
+ * to the end of the last operation.
+ *
+ * If the values increase the concurrency, the sweep can flag the knee of each operation: the first value, that comes
+ * close to the best throughput, after which further values only add latency.
+ */
+public class Sweep
+{
+
+    private static final String FORMAT = "%-12s%-14s%14s%12s%11s%11s%11s%11s%6s\n";
+
+    /**
+     * Steps within this factor of the best throughput are considered as good as the best.
+     */
+    private static final double KNEE_GAIN = 1.1;
+
+    private static class Step
+    {
+        private final String value;
+        private final Statistics statistics;
+
+        Step(String value, Statistics statistics)
+        {
+            super();
+
+            this.value = value;
+            this.statistics = statistics;
+        }
+    }
+
+    private final String parameter;
+    private final boolean knee;
+    private final List<Step> steps = new ArrayList<>();
+
+    public Sweep(String parameter, boolean knee)
+    {
+        super();
+
+        this.parameter = parameter;
+        this.knee = knee;
+    }
+
+    public String getParameter()
+    {
+        return parameter;
+    }
+
+    public void add(String value, Statistics statistics)
+    {
+        steps.add(new Step(value, statistics));
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        int[] knees = new int[Operation.values().length];
+
+        for (Operation operation : Operation.values())
+        {
+            knees[operation.ordinal()] = knee ? findKnee(operation) : -1;
+        }
+
+        builder
+            .append(String
+                .format(FORMAT, parameter, "Operation", "Throughput", "op/s", "p50", "p90", "p99", "p99.9",
+                    knee ? "Knee" : ""));
+
+        for (int i = 0; i < steps.size(); i++)
+        {
+            Step step = steps.get(i);
+
+            for (Average average : step.statistics.getAverages())
+            {
+                if (average.getCount() == 0 || average.getElapsed() <= 0)
+                {
+                    continue;
+                }
+
+                builder
+                    .append(String
+                        .format(FORMAT, step.value, average.getOperation(),
+                            RWPerf.formatSize((long) (average.getSize() / average.getElapsed())) + "/s",
+                            String.format("%,.1f", average.getCount() / average.getElapsed()),
+                            RWPerf.formatDuration(average.getLatency().getValueAtPercentile(50)),
+                            RWPerf.formatDuration(average.getLatency().getValueAtPercentile(90)),
+                            RWPerf.formatDuration(average.getLatency().getValueAtPercentile(99)),
+                            RWPerf.formatDuration(average.getLatency().getValueAtPercentile(99.9)),
+                            knees[average.getOperation().ordinal()] == i ? "<-" : ""));
+            }
+        }
+
+        if (knee)
+        {
+            builder.append("\n");
+
+            for (Operation operation : Operation.values())
+            {
+                int index = knees[operation.ordinal()];
+
+                if (index < 0)
+                {
+                    continue;
+                }
+
+                builder.append(String.format("%-14s", operation + ":"));
+
+                if (index < steps.size() - 1)
+                {
+                    Step last = steps.get(steps.size() - 1);
+
+                    builder
+                        .append(String
+                            .format("knee at %s, more adds less than %d%% throughput, p99 %s at %s, %s at %s\n",
+                                steps.get(index).value, Math.round((KNEE_GAIN - 1) * 100),
+                                p99(steps.get(index), operation), steps.get(index).value, p99(last, operation),
+                                last.value));
+                }
+                else
+                {
+                    builder.append("no knee up to ").append(steps.get(index).value).append("\n");
+                }
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the index of the first step, that reaches the best throughput within the gain, -1 if the operation has no
+     * results. Comparing with the best instead of the previous step keeps a single noisy step from hiding the knee.
+     */
+    private int findKnee(Operation operation)
+    {
+        double best = 0;
+
+        for (Step step : steps)
+        {
+            best = Math.max(best, throughput(step.statistics.get(operation)));
+        }
+
+        for (int i = 0; i < steps.size(); i++)
+        {
+            double throughput = throughput(steps.get(i).statistics.get(operation));
+
+            if (throughput > 0 && throughput * KNEE_GAIN >= best)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String p99(Step step, Operation operation)
+    {
+        return RWPerf.formatDuration(step.statistics.get(operation).getLatency().getValueAtPercentile(99));
+    }
+
+    private static double throughput(Average average)
+    {
+        return average.getCount() > 0 && average.getElapsed() > 0 ? average.getSize() / average.getElapsed() : 0;
+    }
+
+}
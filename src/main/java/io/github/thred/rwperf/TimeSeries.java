@@ -0,0 +1,178 @@
+package io.github.thred.rwperf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the bytes and the operations, that completed within each interval of the run, per {@link Operation}.
+ */
+public class TimeSeries
+{
+
+    private static class Bucket
+    {
+        private final long[] sizes = new long[Operation.values().length];
+        private final long[] counts = new long[Operation.values().length];
+    }
+
+    private static final String TIME_FORMAT = "%-8s";
+    private static final int COLUMN_GAP = 2;
+
+    private final List<Bucket> buckets = new ArrayList<>();
+    private final long interval;
+    private final long startNanos;
+
+    public TimeSeries(long interval)
+    {
+        this(interval, System.nanoTime());
+    }
+
+    /**
+     * Creates a time series. Time series with the same interval and start can be merged with {@link #add(TimeSeries)}.
+     *
+     * @param interval the interval in nanoseconds
+     * @param startNanos the start of the first interval, as returned by {@link System#nanoTime()}
+     */
+    public TimeSeries(long interval, long startNanos)
+    {
+        super();
+
+        this.interval = interval;
+        this.startNanos = startNanos;
+    }
+
+    public void record(Operation operation, long size, long nanos)
+    {
+        record(operation, size, 1, nanos);
+    }
+
+    public void record(Operation operation, long size, long count, long nanos)
+    {
+        int index = (int) Math.max(0, (nanos - startNanos) / interval);
+
+        while (buckets.size() <= index)
+        {
+            buckets.add(new Bucket());
+        }
+
+        Bucket bucket = buckets.get(index);
+
+        bucket.sizes[operation.ordinal()] += size;
+        bucket.counts[operation.ordinal()] += count;
+    }
+
+    /**
+     * Records all operations of the statistics, e.g. a snapshot of a subprocess, as completed at the specified time.
+     *
+     * @param statistics the statistics
+     * @param nanos the time of completion
+     */
+    public void record(Statistics statistics, long nanos)
+    {
+        for (Statistics.Average average : statistics.getAverages())
+        {
+            if (average.getCount() > 0)
+            {
+                record(average.getOperation(), average.getSize(), average.getCount(), nanos);
+            }
+        }
+    }
+
+    public void add(TimeSeries timeSeries)
+    {
+        while (buckets.size() < timeSeries.buckets.size())
+        {
+            buckets.add(new Bucket());
+        }
+
+        for (int i = 0; i < timeSeries.buckets.size(); i++)
+        {
+            Bucket bucket = buckets.get(i);
+            Bucket other = timeSeries.buckets.get(i);
+
+            for (int j = 0; j < bucket.sizes.length; j++)
+            {
+                bucket.sizes[j] += other.sizes[j];
+                bucket.counts[j] += other.counts[j];
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        double seconds = interval / 1000000000d;
+
+        List<Operation> operations = new ArrayList<>();
+
+        for (Operation operation : Operation.values())
+        {
+            if (buckets.stream().anyMatch(bucket -> bucket.counts[operation.ordinal()] > 0))
+            {
+                operations.add(operation);
+            }
+        }
+
+        List<String> header = new ArrayList<>();
+
+        for (Operation operation : operations)
+        {
+            header.add(operation + " op/s");
+            header.add(operation + "/s");
+        }
+
+        List<List<String>> rows = new ArrayList<>();
+
+        for (Bucket bucket : buckets)
+        {
+            List<String> row = new ArrayList<>();
+
+            for (Operation operation : operations)
+            {
+                long size = (long) (bucket.sizes[operation.ordinal()] / seconds);
+                double count = bucket.counts[operation.ordinal()] / seconds;
+
+                row.add(String.format("%,.1f", count));
+                row.add(RWPerf.formatSize(size) + "/s");
+            }
+
+            rows.add(row);
+        }
+
+        // each column is as wide as its widest cell, plus a gap, thus long headers do not run into each other
+        int[] widths = new int[header.size()];
+
+        for (int i = 0; i < widths.length; i++)
+        {
+            widths[i] = header.get(i).length();
+
+            for (List<String> row : rows)
+            {
+                widths[i] = Math.max(widths[i], row.get(i).length());
+            }
+        }
+
+        builder.append(String.format(TIME_FORMAT, "Time"));
+        append(builder, header, widths);
+
+        for (int i = 0; i < rows.size(); i++)
+        {
+            builder.append(String.format(TIME_FORMAT, String.format("%.1f s", i * seconds)));
+            append(builder, rows.get(i), widths);
+        }
+
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, List<String> cells, int[] widths)
+    {
+        for (int i = 0; i < cells.size(); i++)
+        {
+            builder.append(String.format("%" + (widths[i] + COLUMN_GAP) + "s", cells.get(i)));
+        }
+
+        builder.append("\n");
+    }
+
+}
@@ -0,0 +1,45 @@
+package io.github.thred.rwperf;
+
+public enum Workload
+{
+
+    /**
+     * Writes all files sequentially, reads them and deletes them.
+     */
+    Sequential,
+
+    /**
+     * Writes all files sequentially, then writes and reads blocks at random positions within the files.
+     */
+    Random,
+
+    /**
+     * Writes all files sequentially, then reads and rewrites whole files concurrently at a configured ratio.
+     */
+    Mixed,
+
+    /**
+     * Creates empty files and directories, reads their attributes, lists, renames and deletes them.
+     */
+    Metadata;
+
+    public static Workload parse(String name)
+    {
+        for (Workload workload : values())
+        {
+            if (workload.name().equalsIgnoreCase(name))
+            {
+                return workload;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown workload: " + name);
+    }
+
+    @Override
+    public String toString()
+    {
+        return name().toLowerCase();
+    }
+
+}
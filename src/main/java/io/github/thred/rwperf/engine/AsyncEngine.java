@@ -0,0 +1,384 @@
+package io.github.thred.rwperf.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import io.github.thred.rwperf.util.BufferPool;
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+import io.github.thred.rwperf.util.Sync;
+
+/**
+ * Writes and reads files with an {@link AsynchronousFileChannel}. Each file is processed by the thread of the pool,
+ * but up to the specified I/O depth of transfers are kept in flight at consecutive positions. The transfers are
+ * completed in the order they were submitted, thus the checksum stays the same as with the other engines.
+ */
+public class AsyncEngine implements Engine
+{
+
+    public static final String NAME = "async";
+
+    private final BufferPool pool;
+    private final Map<Integer, BufferPool> blockPools = new ConcurrentHashMap<>();
+    private final int ioDepth;
+
+    public AsyncEngine(int bufferSize, int ioDepth)
+    {
+        super();
+
+        if (ioDepth < 1)
+        {
+            throw new IllegalArgumentException("Invalid I/O depth: " + ioDepth);
+        }
+
+        pool = new BufferPool(bufferSize);
+
+        this.ioDepth = ioDepth;
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public void write(File file, Generator generator, long size, Checksum checksum, Sync sync) throws IOException
+    {
+        int bufferSize = pool.getCapacity();
+        Slot[] slots = acquire();
+        long position = 0;
+        int index = 0;
+
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel
+            .open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE))
+        {
+            while (position < size)
+            {
+                Slot slot = slots[index];
+
+                // only completed transfers count towards the next sync
+                sync.update(channel::force, slot.completeWrite(channel));
+
+                int length = (int) Math.min(size - position, bufferSize);
+
+                slot.buffer.clear();
+                generator.fill(slot.buffer);
+                slot.buffer.limit(length);
+
+                // the checksum uses a view, the transfer moves the position of the buffer
+                checksum.update(slot.buffer.duplicate());
+
+                slot.position = position;
+                slot.future = channel.write(slot.buffer, position);
+
+                position += length;
+                index = (index + 1) % slots.length;
+            }
+
+            for (int i = 0; i < slots.length; i++)
+            {
+                sync.update(channel::force, slots[(index + i) % slots.length].completeWrite(channel));
+            }
+
+            sync.complete(channel::force);
+        }
+        finally
+        {
+            release(slots);
+        }
+    }
+
+    @Override
+    public long read(File file, Checksum checksum) throws IOException
+    {
+        int bufferSize = pool.getCapacity();
+        Slot[] slots = acquire();
+        long size = 0;
+        int index = 0;
+
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long fileSize = channel.size();
+            long position = 0;
+
+            while (position < fileSize)
+            {
+                Slot slot = slots[index];
+
+                size += slot.completeRead(channel, fileSize, checksum);
+
+                slot.buffer.clear();
+                slot.buffer.limit((int) Math.min(fileSize - position, bufferSize));
+                slot.position = position;
+                slot.future = channel.read(slot.buffer, position);
+
+                position += slot.buffer.limit();
+                index = (index + 1) % slots.length;
+            }
+
+            for (int i = 0; i < slots.length; i++)
+            {
+                size += slots[(index + i) % slots.length].completeRead(channel, fileSize, checksum);
+            }
+        }
+        finally
+        {
+            release(slots);
+        }
+
+        return size;
+    }
+
+    /**
+     * Positional transfers are awaited one by one, regardless of the I/O depth. Each task of the random workload opens
+     * its own block files, thus the number of transfers in flight equals the number of threads.
+     */
+    @Override
+    public BlockFile open(File file) throws IOException
+    {
+        return new AsyncBlockFile(file, AsynchronousFileChannel
+            .open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    @Override
+    public String toString()
+    {
+        return NAME;
+    }
+
+    private Slot[] acquire()
+    {
+        Slot[] slots = new Slot[ioDepth];
+
+        for (int i = 0; i < slots.length; i++)
+        {
+            slots[i] = new Slot(pool.acquire());
+        }
+
+        return slots;
+    }
+
+    private void release(Slot[] slots)
+    {
+        for (Slot slot : slots)
+        {
+            // a pending transfer may still use the buffer, drop it
+            if (slot.future == null)
+            {
+                pool.release(slot.buffer);
+            }
+        }
+    }
+
+    private static int await(Future<Integer> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+
+            throw new IOException("Asynchronous transfer failed", e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while waiting for a transfer");
+        }
+    }
+
+    private BufferPool blockPool(int length)
+    {
+        return blockPools.computeIfAbsent(length, BufferPool::new);
+    }
+
+    private class AsyncBlockFile implements BlockFile
+    {
+        private final File file;
+        private final AsynchronousFileChannel channel;
+        private final long size;
+
+        AsyncBlockFile(File file, AsynchronousFileChannel channel) throws IOException
+        {
+            super();
+
+            this.file = file;
+            this.channel = channel;
+
+            size = channel.size();
+        }
+
+        @Override
+        public File getFile()
+        {
+            return file;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return size;
+        }
+
+        @Override
+        public void write(long position, int length, Generator generator, Checksum checksum, Sync sync)
+            throws IOException
+        {
+            BufferPool blockPool = blockPool(length);
+            ByteBuffer buffer = blockPool.acquire();
+            Future<Integer> future = null;
+
+            try
+            {
+                generator.fill(buffer);
+
+                while (buffer.hasRemaining())
+                {
+                    future = channel.write(buffer, position + buffer.position());
+
+                    await(future);
+                }
+
+                buffer.flip();
+                checksum.update(buffer);
+                sync.update(channel::force, length);
+                sync.complete(channel::force);
+            }
+            finally
+            {
+                release(blockPool, buffer, future);
+            }
+        }
+
+        @Override
+        public void read(long position, int length, Checksum checksum) throws IOException
+        {
+            BufferPool blockPool = blockPool(length);
+            ByteBuffer buffer = blockPool.acquire();
+            Future<Integer> future = null;
+
+            try
+            {
+                while (buffer.hasRemaining())
+                {
+                    future = channel.read(buffer, position + buffer.position());
+
+                    if (await(future) < 0)
+                    {
+                        break;
+                    }
+                }
+
+                buffer.flip();
+                checksum.update(buffer);
+            }
+            finally
+            {
+                release(blockPool, buffer, future);
+            }
+        }
+
+        /**
+         * Returns the buffer to the pool, also if the transfer failed. If waiting has been interrupted, the transfer
+         * may still use the buffer, drop it.
+         */
+        private void release(BufferPool blockPool, ByteBuffer buffer, Future<Integer> future)
+        {
+            if (future == null || future.isDone())
+            {
+                blockPool.release(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * One buffer with its pending transfer.
+     */
+    private static class Slot
+    {
+        private final ByteBuffer buffer;
+
+        private long position;
+        private Future<Integer> future;
+
+        Slot(ByteBuffer buffer)
+        {
+            super();
+
+            this.buffer = buffer;
+        }
+
+        public int completeWrite(AsynchronousFileChannel channel) throws IOException
+        {
+            if (future == null)
+            {
+                return 0;
+            }
+
+            await(future);
+
+            while (buffer.hasRemaining())
+            {
+                // partial write, the buffer position tells how much has been written
+                future = channel.write(buffer, position + buffer.position());
+
+                await(future);
+            }
+
+            future = null;
+
+            return buffer.limit();
+        }
+
+        public int completeRead(AsynchronousFileChannel channel, long fileSize, Checksum checksum)
+            throws IOException
+        {
+            if (future == null)
+            {
+                return 0;
+            }
+
+            int length = await(future);
+
+            while (length >= 0 && buffer.hasRemaining() && position + buffer.position() < fileSize)
+            {
+                // partial read
+                future = channel.read(buffer, position + buffer.position());
+                length = await(future);
+            }
+
+            future = null;
+
+            buffer.flip();
+
+            int size = buffer.remaining();
+
+            checksum.update(buffer);
+
+            return size;
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package io.github.thred.rwperf.engine;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+import io.github.thred.rwperf.util.Sync;
+
+/**
+ * An open file for positional transfers of blocks. The methods may be called by multiple threads concurrently.
+ */
+public interface BlockFile extends Closeable
+{
+
+    File getFile();
+
+    long getSize();
+
+    /**
+     * Writes one block at the specified position. The content is taken from the random generator.
+     *
+     * @param position the position within the file
+     * @param length the length of the block
+     * @param generator the source of the content
+     * @param checksum the checksum
+     * @param sync forces the written block to the device
+     * @throws IOException on I/O errors
+     */
+    void write(long position, int length, Generator generator, Checksum checksum, Sync sync) throws IOException;
+
+    /**
+     * Reads one block at the specified position.
+     *
+     * @param position the position within the file
+     * @param length the length of the block
+     * @param checksum the checksum
+     * @throws IOException on I/O errors
+     */
+    void read(long position, int length, Checksum checksum) throws IOException;
+
+}
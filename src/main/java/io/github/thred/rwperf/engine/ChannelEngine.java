@@ -0,0 +1,325 @@
+package io.github.thred.rwperf.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import io.github.thred.rwperf.util.BufferPool;
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+import io.github.thred.rwperf.util.Sync;
+
+/**
+ * Writes and reads files with a {@link FileChannel} and pooled direct buffers. In direct mode, the files are opened
+ * with {@link ExtendedOpenOption#DIRECT}, bypassing the page cache. The buffers and the length of each transfer are
+ * aligned to the block size of the file system. The last block of a file gets padded and the file truncated
+ * afterwards.
+ */
+public class ChannelEngine implements Engine
+{
+
+    public static final String NAME = "channel";
+
+    private static final OpenOption[] WRITE_OPTIONS =
+        {StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+    private static final OpenOption[] DIRECT_WRITE_OPTIONS = {StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, ExtendedOpenOption.DIRECT};
+    private static final OpenOption[] READ_OPTIONS = {StandardOpenOption.READ};
+    private static final OpenOption[] DIRECT_READ_OPTIONS = {StandardOpenOption.READ, ExtendedOpenOption.DIRECT};
+    private static final OpenOption[] BLOCK_OPTIONS = {StandardOpenOption.READ, StandardOpenOption.WRITE};
+    private static final OpenOption[] DIRECT_BLOCK_OPTIONS =
+        {StandardOpenOption.READ, StandardOpenOption.WRITE, ExtendedOpenOption.DIRECT};
+
+    /**
+     * Checks if all paths support direct I/O by writing a single block to a temporary file.
+     *
+     * @param paths the paths
+     * @return the largest block size of all paths
+     * @throws IllegalArgumentException if one of the paths does not support direct I/O
+     */
+    public static int probeDirect(List<File> paths)
+    {
+        int alignment = 1;
+
+        for (File path : paths)
+        {
+            int blockSize;
+
+            try
+            {
+                blockSize = (int) Files.getFileStore(path.toPath()).getBlockSize();
+            }
+            catch (IOException | UnsupportedOperationException e)
+            {
+                throw new IllegalArgumentException(
+                    "Direct I/O is not supported at " + path.getAbsolutePath() + ": unknown block size", e);
+            }
+
+            File file = null;
+
+            try
+            {
+                // the name is unique, processes may probe the same path concurrently
+                file = Files.createTempFile(path.toPath(), "rwperf#direct", ".probe").toFile();
+
+                try (FileChannel channel = FileChannel.open(file.toPath(), DIRECT_WRITE_OPTIONS))
+                {
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(blockSize * 2).alignedSlice(blockSize);
+
+                    buffer.limit(blockSize);
+                    channel.write(buffer);
+                }
+            }
+            catch (IOException | UnsupportedOperationException e)
+            {
+                throw new IllegalArgumentException("Direct I/O is not supported at "
+                    + path.getAbsolutePath()
+                    + " (block size "
+                    + blockSize
+                    + "): "
+                    + e.getMessage(), e);
+            }
+            finally
+            {
+                if (file != null)
+                {
+                    file.delete();
+                }
+            }
+
+            alignment = Math.max(alignment, blockSize);
+        }
+
+        return alignment;
+    }
+
+    private final BufferPool pool;
+    private final Map<Integer, BufferPool> blockPools = new ConcurrentHashMap<>();
+    private final boolean direct;
+    private final int alignment;
+
+    public ChannelEngine(int bufferSize)
+    {
+        this(bufferSize, false, 1);
+    }
+
+    public ChannelEngine(int bufferSize, boolean direct, int alignment)
+    {
+        super();
+
+        pool = new BufferPool(align(bufferSize, alignment), alignment);
+
+        this.direct = direct;
+        this.alignment = alignment;
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public void write(File file, Generator generator, long size, Checksum checksum, Sync sync) throws IOException
+    {
+        int bufferSize = pool.getCapacity();
+        ByteBuffer buffer = pool.acquire();
+        long remaining = size;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), direct ? DIRECT_WRITE_OPTIONS : WRITE_OPTIONS))
+        {
+            while (remaining > 0)
+            {
+                // the content is generated right into the direct buffer, there is no copy from the heap
+                buffer.clear();
+                generator.fill(buffer);
+
+                int length = (int) Math.min(remaining, bufferSize);
+
+                buffer.limit(align(length, alignment));
+
+                while (buffer.hasRemaining())
+                {
+                    channel.write(buffer);
+                }
+
+                buffer.position(0);
+                buffer.limit(length);
+                checksum.update(buffer);
+                sync.update(channel::force, length);
+
+                remaining -= bufferSize;
+            }
+
+            if (channel.size() > size)
+            {
+                channel.truncate(size);
+            }
+
+            sync.complete(channel::force);
+        }
+        finally
+        {
+            pool.release(buffer);
+        }
+    }
+
+    @Override
+    public long read(File file, Checksum checksum) throws IOException
+    {
+        ByteBuffer buffer = pool.acquire();
+        long size = 0;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), direct ? DIRECT_READ_OPTIONS : READ_OPTIONS))
+        {
+            int length;
+
+            while ((length = channel.read(buffer)) >= 0)
+            {
+                size += length;
+
+                buffer.flip();
+                checksum.update(buffer);
+                buffer.clear();
+
+                if (direct && length < buffer.capacity())
+                {
+                    // end of file, the position is not aligned anymore
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            pool.release(buffer);
+        }
+
+        return size;
+    }
+
+    @Override
+    public BlockFile open(File file) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file.toPath(), direct ? DIRECT_BLOCK_OPTIONS : BLOCK_OPTIONS);
+
+        return new ChannelBlockFile(file, channel);
+    }
+
+    @Override
+    public String toString()
+    {
+        return NAME;
+    }
+
+    private static int align(int length, int alignment)
+    {
+        return (length + alignment - 1) / alignment * alignment;
+    }
+
+    private BufferPool blockPool(int length) throws IOException
+    {
+        if (length % alignment != 0)
+        {
+            throw new IOException("Block size " + length + " is not aligned to " + alignment + " bytes");
+        }
+
+        return blockPools.computeIfAbsent(length, capacity -> new BufferPool(capacity, alignment));
+    }
+
+    private class ChannelBlockFile implements BlockFile
+    {
+        private final File file;
+        private final FileChannel channel;
+        private final long size;
+
+        ChannelBlockFile(File file, FileChannel channel) throws IOException
+        {
+            super();
+
+            this.file = file;
+            this.channel = channel;
+
+            size = channel.size();
+        }
+
+        @Override
+        public File getFile()
+        {
+            return file;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return size;
+        }
+
+        @Override
+        public void write(long position, int length, Generator generator, Checksum checksum, Sync sync)
+            throws IOException
+        {
+            BufferPool blockPool = blockPool(length);
+            ByteBuffer buffer = blockPool.acquire();
+
+            try
+            {
+                generator.fill(buffer);
+
+                while (buffer.hasRemaining())
+                {
+                    channel.write(buffer, position + buffer.position());
+                }
+
+                buffer.flip();
+                checksum.update(buffer);
+                sync.update(channel::force, length);
+                sync.complete(channel::force);
+            }
+            finally
+            {
+                blockPool.release(buffer);
+            }
+        }
+
+        @Override
+        public void read(long position, int length, Checksum checksum) throws IOException
+        {
+            BufferPool blockPool = blockPool(length);
+            ByteBuffer buffer = blockPool.acquire();
+
+            try
+            {
+                while (buffer.hasRemaining())
+                {
+                    if (channel.read(buffer, position + buffer.position()) < 0)
+                    {
+                        break;
+                    }
+                }
+
+                buffer.flip();
+                checksum.update(buffer);
+            }
+            finally
+            {
+                blockPool.release(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            channel.close();
+        }
+    }
+
+}
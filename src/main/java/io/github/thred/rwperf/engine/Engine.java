@@ -0,0 +1,103 @@
+package io.github.thred.rwperf.engine;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.github.thred.rwperf.Configuration;
+import io.github.thred.rwperf.Workload;
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+import io.github.thred.rwperf.util.Sync;
+
+/**
+ * Performs the actual I/O of a write or read operation. The {@link io.github.thred.rwperf.Service} takes care of
+ * timing and reporting, an engine only moves the bytes. Implementations are shared by all threads of a process and
+ * must be thread-safe.
+ */
+public interface Engine
+{
+
+    static Engine create(Configuration configuration)
+    {
+        if (configuration.isDirect() && !ChannelEngine.NAME.equals(configuration.getEngine()))
+        {
+            throw new IllegalArgumentException(
+                "Direct I/O is not supported by the " + configuration.getEngine() + " engine");
+        }
+
+        int blockSize = configuration.getBlockSize();
+
+        switch (configuration.getEngine())
+        {
+            case StreamEngine.NAME:
+                return new StreamEngine(blockSize);
+
+            case ChannelEngine.NAME:
+                if (configuration.isDirect())
+                {
+                    int alignment = ChannelEngine.probeDirect(configuration.getPaths());
+
+                    if (blockSize % alignment != 0)
+                    {
+                        throw new IllegalArgumentException(
+                            "Direct I/O needs a block size aligned to " + alignment + " bytes");
+                    }
+
+                    // the positions of the blocks are multiples of the I/O size, too
+                    if (configuration.getWorkload() == Workload.Random && configuration.getIoSize() % alignment != 0)
+                    {
+                        throw new IllegalArgumentException(
+                            "Direct I/O needs an I/O size aligned to " + alignment + " bytes");
+                    }
+
+                    return new ChannelEngine(blockSize, true, alignment);
+                }
+
+                return new ChannelEngine(blockSize);
+
+            case MappedEngine.NAME:
+                return new MappedEngine(blockSize, configuration.getMapSize());
+
+            case AsyncEngine.NAME:
+                return new AsyncEngine(blockSize, configuration.getIoDepth());
+
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + configuration.getEngine());
+        }
+    }
+
+    String getName();
+
+    /**
+     * Writes the specified number of bytes to the file. The content is taken from the generator, buffer by buffer, and
+     * each written chunk is added to the checksum.
+     *
+     * @param file the file
+     * @param generator the source of the content
+     * @param size the number of bytes to write
+     * @param checksum the checksum
+     * @param sync forces the written data to the device
+     * @throws IOException on I/O errors
+     */
+    void write(File file, Generator generator, long size, Checksum checksum, Sync sync) throws IOException;
+
+    /**
+     * Reads the whole file and adds the content to the checksum.
+     *
+     * @param file the file
+     * @param checksum the checksum
+     * @return the number of bytes read
+     * @throws IOException on I/O errors
+     */
+    long read(File file, Checksum checksum) throws IOException;
+
+    /**
+     * Opens an existing file for positional transfers.
+     *
+     * @param file the file
+     * @return the open file
+     * @throws IOException on I/O errors
+     */
+    BlockFile open(File file) throws IOException;
+
+}
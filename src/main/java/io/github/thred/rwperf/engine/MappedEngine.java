@@ -0,0 +1,332 @@
+package io.github.thred.rwperf.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.thred.rwperf.util.BufferPool;
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+import io.github.thred.rwperf.util.Sync;
+
+/**
+ * Writes and reads files through {@link MappedByteBuffer}s. The file is mapped window by window. Each window gets
+ * forced (on write, as configured by the sync) and unmapped explicitly, before the next one gets mapped, so that the
+ * measured duration includes the costs for mapping, copying, forcing and unmapping.
+ */
+public class MappedEngine implements Engine
+{
+
+    public static final String NAME = "mmap";
+
+    private static final Unmapper UNMAPPER = Unmapper.create();
+
+    private final Map<Integer, BufferPool> blockPools = new ConcurrentHashMap<>();
+    private final int bufferSize;
+    private final long mapSize;
+
+    public MappedEngine(int bufferSize, long mapSize)
+    {
+        super();
+
+        if (mapSize <= 0 || mapSize > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Invalid map size: " + mapSize);
+        }
+
+        this.bufferSize = bufferSize;
+        this.mapSize = mapSize;
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public void write(File file, Generator generator, long size, Checksum checksum, Sync sync) throws IOException
+    {
+        byte[] buffer = new byte[bufferSize];
+        // the unused part of the buffer is carried over to the next window, thus the content does not depend on the
+        // map size
+        int offset = bufferSize;
+        long position = 0;
+
+        try (FileChannel channel = FileChannel
+            .open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            while (position < size)
+            {
+                long windowSize = Math.min(mapSize, size - position);
+                MappedByteBuffer window = channel.map(MapMode.READ_WRITE, position, windowSize);
+                Sync.Target target = metaData -> {
+                    window.force();
+
+                    if (metaData)
+                    {
+                        channel.force(true);
+                    }
+                };
+
+                try
+                {
+                    while (window.hasRemaining())
+                    {
+                        if (offset == bufferSize)
+                        {
+                            generator.fill(buffer);
+                            offset = 0;
+                        }
+
+                        int length = Math.min(window.remaining(), bufferSize - offset);
+
+                        window.put(buffer, offset, length);
+                        checksum.update(buffer, offset, length);
+                        sync.update(target, length);
+                        offset += length;
+                    }
+                }
+                finally
+                {
+                    UNMAPPER.unmap(window);
+                }
+
+                position += windowSize;
+            }
+
+            // the pages of the unmapped windows are still in the page cache, forcing the channel writes them
+            sync.complete(channel::force);
+        }
+    }
+
+    @Override
+    public long read(File file, Checksum checksum) throws IOException
+    {
+        long position = 0;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+
+            while (position < size)
+            {
+                long windowSize = Math.min(mapSize, size - position);
+                MappedByteBuffer window = channel.map(MapMode.READ_ONLY, position, windowSize);
+
+                try
+                {
+                    checksum.update(window);
+                }
+                finally
+                {
+                    UNMAPPER.unmap(window);
+                }
+
+                position += windowSize;
+            }
+        }
+
+        return position;
+    }
+
+    @Override
+    public BlockFile open(File file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            long size = channel.size();
+            MappedByteBuffer[] windows = new MappedByteBuffer[(int) ((size + mapSize - 1) / mapSize)];
+
+            for (int i = 0; i < windows.length; i++)
+            {
+                long position = i * mapSize;
+
+                windows[i] = channel.map(MapMode.READ_WRITE, position, Math.min(mapSize, size - position));
+            }
+
+            return new MappedBlockFile(file, size, windows);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return NAME;
+    }
+
+    private BufferPool blockPool(int length)
+    {
+        return blockPools.computeIfAbsent(length, BufferPool::new);
+    }
+
+    /**
+     * The whole file stays mapped while open, thus the transfers only cost page faults and copying. Blocks may span
+     * multiple windows.
+     */
+    private class MappedBlockFile implements BlockFile
+    {
+        private final File file;
+        private final long size;
+        private final MappedByteBuffer[] windows;
+
+        MappedBlockFile(File file, long size, MappedByteBuffer[] windows)
+        {
+            super();
+
+            this.file = file;
+            this.size = size;
+            this.windows = windows;
+        }
+
+        @Override
+        public File getFile()
+        {
+            return file;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return size;
+        }
+
+        @Override
+        public void write(long position, int length, Generator generator, Checksum checksum, Sync sync)
+            throws IOException
+        {
+            BufferPool blockPool = blockPool(length);
+            ByteBuffer buffer = blockPool.acquire();
+
+            try
+            {
+                generator.fill(buffer);
+
+                while (buffer.hasRemaining())
+                {
+                    ByteBuffer window = window(position + buffer.position());
+                    int chunk = Math.min(window.remaining(), buffer.remaining());
+                    ByteBuffer slice = buffer.slice();
+
+                    slice.limit(chunk);
+                    window.put(slice);
+                    buffer.position(buffer.position() + chunk);
+                }
+
+                buffer.flip();
+                checksum.update(buffer);
+            }
+            finally
+            {
+                blockPool.release(buffer);
+            }
+
+            // the file is not open anymore, force the mapped windows holding the block
+            Sync.Target target = metaData -> {
+                for (long i = position / mapSize; i <= (position + length - 1) / mapSize; i++)
+                {
+                    windows[(int) i].force();
+                }
+            };
+
+            sync.update(target, length);
+            sync.complete(target);
+        }
+
+        @Override
+        public void read(long position, int length, Checksum checksum) throws IOException
+        {
+            int offset = 0;
+
+            while (offset < length)
+            {
+                ByteBuffer window = window(position + offset);
+                int chunk = Math.min(window.remaining(), length - offset);
+
+                window.limit(window.position() + chunk);
+                checksum.update(window);
+                offset += chunk;
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            // the blocks have been forced by the writes, as configured by the sync
+            for (MappedByteBuffer window : windows)
+            {
+                UNMAPPER.unmap(window);
+            }
+        }
+
+        /**
+         * Returns an independent view of the window containing the position, positioned at it.
+         */
+        private ByteBuffer window(long position) throws IOException
+        {
+            if (position >= size)
+            {
+                throw new IOException("Position " + position + " beyond end of file " + file);
+            }
+
+            ByteBuffer window = windows[(int) (position / mapSize)].duplicate();
+
+            window.position((int) (position % mapSize));
+
+            return window;
+        }
+    }
+
+    /**
+     * There is no public API to unmap a buffer. Without unmapping, the mapping stays alive until the buffer gets
+     * collected and the costs would not show up in the results. Uses Unsafe.invokeCleaner.
+     */
+    private interface Unmapper
+    {
+
+        static Unmapper create()
+        {
+            try
+            {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+
+                field.setAccessible(true);
+
+                Object unsafe = field.get(null);
+
+                return buffer -> invokeCleaner.invoke(unsafe, buffer);
+            }
+            catch (ReflectiveOperationException | RuntimeException e)
+            {
+                throw new IllegalStateException("Failed to resolve Unsafe.invokeCleaner", e);
+            }
+        }
+
+        void unmap0(MappedByteBuffer buffer) throws ReflectiveOperationException;
+
+        default void unmap(MappedByteBuffer buffer) throws IOException
+        {
+            try
+            {
+                unmap0(buffer);
+            }
+            catch (ReflectiveOperationException | RuntimeException e)
+            {
+                throw new IOException("Failed to unmap buffer", e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,193 @@
+package io.github.thred.rwperf.engine;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.thred.rwperf.util.BufferPool;
+import io.github.thred.rwperf.util.Checksum;
+import io.github.thred.rwperf.util.Generator;
+import io.github.thred.rwperf.util.Sync;
+
+public class StreamEngine implements Engine
+{
+
+    public static final String NAME = "stream";
+
+    private final Map<Integer, BufferPool> blockPools = new ConcurrentHashMap<>();
+    private final int bufferSize;
+
+    public StreamEngine(int bufferSize)
+    {
+        super();
+
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public void write(File file, Generator generator, long size, Checksum checksum, Sync sync) throws IOException
+    {
+        byte[] buffer = new byte[bufferSize];
+        long remaining = size;
+
+        try (FileOutputStream out = new FileOutputStream(file))
+        {
+            Sync.Target target = out.getChannel()::force;
+
+            while (remaining > 0)
+            {
+                generator.fill(buffer);
+
+                int length = (int) Math.min(remaining, bufferSize);
+
+                out.write(buffer, 0, length);
+                checksum.update(buffer, 0, length);
+                sync.update(target, length);
+
+                remaining -= bufferSize;
+            }
+
+            sync.complete(target);
+        }
+    }
+
+    @Override
+    public long read(File file, Checksum checksum) throws IOException
+    {
+        byte[] buffer = new byte[bufferSize];
+        long size = 0;
+
+        try (FileInputStream in = new FileInputStream(file))
+        {
+            int length;
+
+            while ((length = in.read(buffer)) >= 0)
+            {
+                size += length;
+                checksum.update(buffer, 0, length);
+            }
+        }
+
+        return size;
+    }
+
+    @Override
+    public BlockFile open(File file) throws IOException
+    {
+        return new StreamBlockFile(file);
+    }
+
+    @Override
+    public String toString()
+    {
+        return NAME;
+    }
+
+    private BufferPool blockPool(int length)
+    {
+        return blockPools.computeIfAbsent(length, capacity -> new BufferPool(capacity, 1, false));
+    }
+
+    /**
+     * A {@link RandomAccessFile} has one file pointer, thus seeking and transferring is synchronized.
+     */
+    private class StreamBlockFile implements BlockFile
+    {
+        private final File file;
+        private final RandomAccessFile access;
+        private final long size;
+
+        StreamBlockFile(File file) throws IOException
+        {
+            super();
+
+            this.file = file;
+
+            access = new RandomAccessFile(file, "rw");
+            size = access.length();
+        }
+
+        @Override
+        public File getFile()
+        {
+            return file;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return size;
+        }
+
+        @Override
+        public void write(long position, int length, Generator generator, Checksum checksum, Sync sync)
+            throws IOException
+        {
+            BufferPool blockPool = blockPool(length);
+            ByteBuffer buffer = blockPool.acquire();
+
+            try
+            {
+                byte[] bytes = buffer.array();
+
+                generator.fill(bytes);
+
+                synchronized (access)
+                {
+                    access.seek(position);
+                    access.write(bytes);
+                }
+
+                checksum.update(bytes, 0, length);
+                sync.update(access.getChannel()::force, length);
+                sync.complete(access.getChannel()::force);
+            }
+            finally
+            {
+                blockPool.release(buffer);
+            }
+        }
+
+        @Override
+        public void read(long position, int length, Checksum checksum) throws IOException
+        {
+            BufferPool blockPool = blockPool(length);
+            ByteBuffer buffer = blockPool.acquire();
+
+            try
+            {
+                byte[] bytes = buffer.array();
+
+                synchronized (access)
+                {
+                    access.seek(position);
+                    access.readFully(bytes);
+                }
+
+                checksum.update(bytes, 0, length);
+            }
+            finally
+            {
+                blockPool.release(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            access.close();
+        }
+    }
+
+}
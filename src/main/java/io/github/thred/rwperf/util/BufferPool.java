@@ -0,0 +1,84 @@
+package io.github.thred.rwperf.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A pool of direct buffers with a fixed capacity. Allocating direct memory is expensive, so buffers are reused for the
+ * whole run. The pool grows up to the number of threads using it concurrently. If an alignment is specified, the
+ * address of each buffer is a multiple of it, as needed for direct I/O. A pool of heap buffers avoids allocating an
+ * array per transfer, for APIs that need arrays.
+ */
+public class BufferPool
+{
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final int capacity;
+    private final int alignment;
+    private final boolean direct;
+
+    public BufferPool(int capacity)
+    {
+        this(capacity, 1);
+    }
+
+    public BufferPool(int capacity, int alignment)
+    {
+        this(capacity, alignment, true);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param capacity the capacity of each buffer
+     * @param alignment the alignment of direct buffers
+     * @param direct true for direct buffers, false for heap buffers with an accessible array
+     */
+    public BufferPool(int capacity, int alignment, boolean direct)
+    {
+        super();
+
+        this.capacity = capacity;
+        this.alignment = alignment;
+        this.direct = direct;
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    public ByteBuffer acquire()
+    {
+        ByteBuffer buffer = buffers.poll();
+
+        if (buffer == null)
+        {
+            if (!direct)
+            {
+                buffer = ByteBuffer.allocate(capacity);
+            }
+            else if (alignment > 1)
+            {
+                buffer = ByteBuffer.allocateDirect(capacity + alignment - 1).alignedSlice(alignment);
+                buffer.limit(capacity);
+                buffer = buffer.slice();
+            }
+            else
+            {
+                buffer = ByteBuffer.allocateDirect(capacity);
+            }
+        }
+
+        buffer.clear();
+
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer)
+    {
+        buffers.offer(buffer);
+    }
+
+}
@@ -1,34 +1,58 @@
-package io.github.thred.rwperf.util;
-
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
-
-public class Checksum
-{
-
-    private final MessageDigest digest;
-
-    public Checksum()
-    {
-        try
-        {
-            digest = MessageDigest.getInstance("SHA-1");
-        }
-        catch (NoSuchAlgorithmException e)
-        {
-            throw new RuntimeException("O my god, they killed SHA-1!");
-        }
-    }
-
-    public void update(byte[] buffer, int offset, int length)
-    {
-        digest.update(buffer, offset, length);
-    }
-
-    public String complete()
-    {
-        return Base64.getEncoder().encodeToString(digest.digest());
-    }
-
-}
+package io.github.thred.rwperf.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A checksum over all bytes written to or read from a file. Checksums are created per transfer with
+ * {@link #create(String)}.
+ */
+public interface Checksum
+{
+
+    String SHA1 = "sha1";
+    String CRC32C = "crc32c";
+    String XXHASH64 = "xxhash64";
+    String NONE = "none";
+
+    /**
+     * Creates a checksum of the specified algorithm.
+     *
+     * @param algorithm the name of the algorithm
+     * @return the checksum
+     * @throws IllegalArgumentException if the algorithm is unknown
+     */
+    static Checksum create(String algorithm)
+    {
+        switch (algorithm)
+        {
+            case SHA1:
+                return new Sha1Checksum();
+
+            case CRC32C:
+                return new Crc32cChecksum();
+
+            case XXHASH64:
+                return new XxHash64Checksum();
+
+            case NONE:
+                return new NoChecksum();
+
+            default:
+                throw new IllegalArgumentException("Unknown checksum: " + algorithm);
+        }
+    }
+
+    String getAlgorithm();
+
+    void update(byte[] buffer, int offset, int length);
+
+    /**
+     * Adds the remaining bytes of the buffer. The position of the buffer is moved to its limit.
+     *
+     * @param buffer the buffer
+     */
+    void update(ByteBuffer buffer);
+
+    String complete();
+
+}
@@ -0,0 +1,43 @@
+package io.github.thred.rwperf.util;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * A CRC-32C, which is computed with hardware instructions on most platforms.
+ */
+public class Crc32cChecksum implements Checksum
+{
+
+    private final CRC32C crc = new CRC32C();
+
+    public Crc32cChecksum()
+    {
+        super();
+    }
+
+    @Override
+    public String getAlgorithm()
+    {
+        return CRC32C;
+    }
+
+    @Override
+    public void update(byte[] buffer, int offset, int length)
+    {
+        crc.update(buffer, offset, length);
+    }
+
+    @Override
+    public void update(ByteBuffer buffer)
+    {
+        crc.update(buffer);
+    }
+
+    @Override
+    public String complete()
+    {
+        return String.format("%08x", crc.getValue());
+    }
+
+}
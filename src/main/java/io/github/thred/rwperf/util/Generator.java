@@ -0,0 +1,116 @@
+package io.github.thred.rwperf.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Generates the content of files. The content is reproducible from the seed, but unlike {@link java.util.Random} the
+ * generator is neither synchronized nor limited to 4 bytes per step: it fills arrays with the 64 bit values of a
+ * SplitMix64 sequence. The time spent in {@link #fill(byte[])} is accumulated, thus it can be reported separately from
+ * the time of the transfer.
+ *
+ * The generator is not thread-safe.
+ */
+public class Generator
+{
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private long state;
+    private long nanos = 0;
+
+    public Generator(long seed)
+    {
+        super();
+
+        state = seed;
+    }
+
+    /**
+     * Fills the whole array with the next values.
+     *
+     * @param bytes the array
+     */
+    public void fill(byte[] bytes)
+    {
+        long startNanos = System.nanoTime();
+        int length = bytes.length & ~7;
+        int i = 0;
+
+        for (; i < length; i += 8)
+        {
+            LONGS.set(bytes, i, next());
+        }
+
+        if (i < bytes.length)
+        {
+            long value = next();
+
+            for (; i < bytes.length; i++)
+            {
+                bytes[i] = (byte) value;
+                value >>>= 8;
+            }
+        }
+
+        nanos += System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Fills the remaining bytes of the buffer with the next values, in the same byte order as {@link #fill(byte[])},
+     * thus both produce the same content. The position of the buffer is not changed.
+     *
+     * @param buffer the buffer, e.g. a direct one
+     */
+    public void fill(ByteBuffer buffer)
+    {
+        long startNanos = System.nanoTime();
+        boolean swap = buffer.order() != ByteOrder.LITTLE_ENDIAN;
+        int limit = buffer.limit();
+        int end = buffer.position() + ((limit - buffer.position()) & ~7);
+        int i = buffer.position();
+
+        for (; i < end; i += 8)
+        {
+            long value = next();
+
+            buffer.putLong(i, swap ? Long.reverseBytes(value) : value);
+        }
+
+        if (i < limit)
+        {
+            long value = next();
+
+            for (; i < limit; i++)
+            {
+                buffer.put(i, (byte) value);
+                value >>>= 8;
+            }
+        }
+
+        nanos += System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Returns the time spent generating content since the generator has been created.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getNanos()
+    {
+        return nanos;
+    }
+
+    private long next()
+    {
+        long z = state += 0x9E3779B97F4A7C15L;
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+}
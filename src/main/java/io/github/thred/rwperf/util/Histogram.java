@@ -0,0 +1,187 @@
+package io.github.thred.rwperf.util;
+
+/**
+ * A log-bucketed histogram for positive long values in the manner of HdrHistogram. Values below 128 are recorded
+ * exactly, above each power of two is split into 64 sub-buckets. This keeps the relative error below 1/64 (1.6%) over
+ * the whole range of long values with a fixed array of 3712 counters. Histograms can be merged with
+ * {@link #add(Histogram)} without losing precision.
+ *
+ * The histogram is not thread-safe.
+ */
+public class Histogram
+{
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LENGTH = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    static int indexOf(long value)
+    {
+        if (value < SUB_BUCKET_COUNT * 2)
+        {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+        return (exponent << SUB_BUCKET_BITS) + (int) (value >>> exponent);
+    }
+
+    static long highestValueOf(int index)
+    {
+        if (index < SUB_BUCKET_COUNT * 2)
+        {
+            return index;
+        }
+
+        int exponent = (index >> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - (exponent << SUB_BUCKET_BITS);
+
+        return ((mantissa + 1) << exponent) - 1;
+    }
+
+    /**
+     * Parses a histogram encoded by {@link #encode()}.
+     *
+     * @param s the encoded histogram
+     * @return the histogram
+     * @throws IllegalArgumentException if the string cannot be parsed
+     */
+    public static Histogram decode(String s)
+    {
+        Histogram histogram = new Histogram();
+        String[] chunks = s.split(",");
+
+        try
+        {
+            histogram.count = Long.parseLong(chunks[0]);
+            histogram.sum = Long.parseLong(chunks[1]);
+            histogram.min = Long.parseLong(chunks[2]);
+            histogram.max = Long.parseLong(chunks[3]);
+
+            for (int i = 4; i < chunks.length; i++)
+            {
+                int indexOf = chunks[i].indexOf(':');
+
+                histogram.counts[Integer.parseInt(chunks[i].substring(0, indexOf))] =
+                    Long.parseLong(chunks[i].substring(indexOf + 1));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            throw new IllegalArgumentException("Invalid histogram: " + s, e);
+        }
+
+        return histogram;
+    }
+
+    private final long[] counts = new long[LENGTH];
+
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    public Histogram()
+    {
+        super();
+    }
+
+    public void record(long value)
+    {
+        value = Math.max(value, 0);
+
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void add(Histogram histogram)
+    {
+        for (int i = 0; i < LENGTH; i++)
+        {
+            counts[i] += histogram.counts[i];
+        }
+
+        count += histogram.count;
+        sum += histogram.sum;
+        min = Math.min(min, histogram.min);
+        max = Math.max(max, histogram.max);
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getMin()
+    {
+        return count > 0 ? min : 0;
+    }
+
+    public long getMax()
+    {
+        return max;
+    }
+
+    public double getMean()
+    {
+        return count > 0 ? sum / (double) count : 0;
+    }
+
+    /**
+     * Returns the value at the specified percentile. The result is the highest value, that is equivalent to the
+     * recorded ones within the precision of the histogram, but never more than the max value.
+     *
+     * @param percentile the percentile, 0 to 100
+     * @return the value, 0 if the histogram is empty
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        long limit = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+        long current = 0;
+
+        for (int i = 0; i < LENGTH; i++)
+        {
+            current += counts[i];
+
+            if (current >= limit)
+            {
+                return Math.max(Math.min(highestValueOf(i), max), getMin());
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Encodes the histogram as count, sum, min and max followed by the non-empty buckets as index:count, all separated
+     * by commas.
+     *
+     * @return the encoded histogram
+     */
+    public String encode()
+    {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(count).append(",").append(sum).append(",").append(min).append(",").append(max);
+
+        for (int i = 0; i < LENGTH; i++)
+        {
+            if (counts[i] != 0)
+            {
+                builder.append(",").append(i).append(":").append(counts[i]);
+            }
+        }
+
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,414 @@
+package io.github.thred.rwperf.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and parses JSON documents of maps, lists, strings, numbers, booleans and null, as used by the reports. Parsed
+ * objects are {@link LinkedHashMap}s, arrays are {@link ArrayList}s, integral numbers are {@link Long}s, all other
+ * numbers are {@link Double}s.
+ */
+public class Json
+{
+
+    /**
+     * Writes the value as indented JSON. Doubles, that are not finite, are written as null.
+     *
+     * @param value the value
+     * @return the JSON
+     */
+    public static String write(Object value)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        write(builder, value, "");
+
+        return builder.toString();
+    }
+
+    /**
+     * Parses a JSON document.
+     *
+     * @param s the JSON
+     * @return the value
+     * @throws IllegalArgumentException if the document cannot be parsed
+     */
+    public static Object parse(String s)
+    {
+        Json json = new Json(s);
+
+        json.skipWhitespace();
+
+        Object value = json.parseValue();
+
+        json.skipWhitespace();
+
+        if (json.index < s.length())
+        {
+            throw json.error("Unexpected content");
+        }
+
+        return value;
+    }
+
+    private static void write(StringBuilder builder, Object value, String indent)
+    {
+        if (value instanceof Map)
+        {
+            String inner = indent + "  ";
+            boolean first = true;
+
+            builder.append("{");
+
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                builder.append(first ? "\n" : ",\n").append(inner);
+                writeString(builder, String.valueOf(entry.getKey()));
+                builder.append(": ");
+                write(builder, entry.getValue(), inner);
+
+                first = false;
+            }
+
+            builder.append(first ? "}" : "\n" + indent + "}");
+        }
+        else if (value instanceof List)
+        {
+            String inner = indent + "  ";
+            boolean first = true;
+
+            builder.append("[");
+
+            for (Object element : (List<?>) value)
+            {
+                builder.append(first ? "\n" : ",\n").append(inner);
+                write(builder, element, inner);
+
+                first = false;
+            }
+
+            builder.append(first ? "]" : "\n" + indent + "]");
+        }
+        else if (value instanceof Double)
+        {
+            double d = (Double) value;
+
+            builder.append(Double.isFinite(d) ? String.valueOf(d) : "null");
+        }
+        else if (value instanceof Number || value instanceof Boolean)
+        {
+            builder.append(value);
+        }
+        else if (value == null)
+        {
+            builder.append("null");
+        }
+        else
+        {
+            writeString(builder, String.valueOf(value));
+        }
+    }
+
+    private static void writeString(StringBuilder builder, String s)
+    {
+        builder.append("\"");
+
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+
+            switch (c)
+            {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+
+                case '\n':
+                    builder.append("\\n");
+                    break;
+
+                case '\r':
+                    builder.append("\\r");
+                    break;
+
+                case '\t':
+                    builder.append("\\t");
+                    break;
+
+                default:
+                    if (c < 0x20)
+                    {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        builder.append(c);
+                    }
+            }
+        }
+
+        builder.append("\"");
+    }
+
+    private final String s;
+
+    private int index = 0;
+
+    private Json(String s)
+    {
+        super();
+
+        this.s = s;
+    }
+
+    private Object parseValue()
+    {
+        if (index >= s.length())
+        {
+            throw error("Unexpected end");
+        }
+
+        char c = s.charAt(index);
+
+        switch (c)
+        {
+            case '{':
+                return parseObject();
+
+            case '[':
+                return parseArray();
+
+            case '"':
+                return parseString();
+
+            case 't':
+                return parseLiteral("true", Boolean.TRUE);
+
+            case 'f':
+                return parseLiteral("false", Boolean.FALSE);
+
+            case 'n':
+                return parseLiteral("null", null);
+
+            default:
+                return parseNumber();
+        }
+    }
+
+    private Map<String, Object> parseObject()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+
+        expect('{');
+        skipWhitespace();
+
+        if (consume('}'))
+        {
+            return map;
+        }
+
+        do
+        {
+            skipWhitespace();
+
+            String key = parseString();
+
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            map.put(key, parseValue());
+
+            skipWhitespace();
+        }
+        while (consume(','));
+
+        expect('}');
+
+        return map;
+    }
+
+    private List<Object> parseArray()
+    {
+        List<Object> list = new ArrayList<>();
+
+        expect('[');
+        skipWhitespace();
+
+        if (consume(']'))
+        {
+            return list;
+        }
+
+        do
+        {
+            skipWhitespace();
+
+            list.add(parseValue());
+
+            skipWhitespace();
+        }
+        while (consume(','));
+
+        expect(']');
+
+        return list;
+    }
+
+    private String parseString()
+    {
+        StringBuilder builder = new StringBuilder();
+
+        expect('"');
+
+        while (true)
+        {
+            if (index >= s.length())
+            {
+                throw error("Unterminated string");
+            }
+
+            char c = s.charAt(index++);
+
+            if (c == '"')
+            {
+                return builder.toString();
+            }
+
+            if (c != '\\')
+            {
+                builder.append(c);
+                continue;
+            }
+
+            if (index >= s.length())
+            {
+                throw error("Unterminated string");
+            }
+
+            c = s.charAt(index++);
+
+            switch (c)
+            {
+                case 'b':
+                    builder.append('\b');
+                    break;
+
+                case 'f':
+                    builder.append('\f');
+                    break;
+
+                case 'n':
+                    builder.append('\n');
+                    break;
+
+                case 'r':
+                    builder.append('\r');
+                    break;
+
+                case 't':
+                    builder.append('\t');
+                    break;
+
+                case 'u':
+                    if (index + 4 > s.length())
+                    {
+                        throw error("Invalid escape");
+                    }
+
+                    try
+                    {
+                        builder.append((char) Integer.parseInt(s.substring(index, index + 4), 16));
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        throw error("Invalid escape");
+                    }
+
+                    index += 4;
+                    break;
+
+                default:
+                    builder.append(c);
+                    break;
+            }
+        }
+    }
+
+    private Object parseLiteral(String literal, Object value)
+    {
+        if (!s.startsWith(literal, index))
+        {
+            throw error("Unexpected character");
+        }
+
+        index += literal.length();
+
+        return value;
+    }
+
+    private Number parseNumber()
+    {
+        int start = index;
+        boolean integral = true;
+
+        while (index < s.length() && "+-0123456789.eE".indexOf(s.charAt(index)) >= 0)
+        {
+            integral &= Character.isDigit(s.charAt(index)) || s.charAt(index) == '-';
+            index++;
+        }
+
+        String number = s.substring(start, index);
+
+        try
+        {
+            return integral ? (Number) Long.parseLong(number) : (Number) Double.parseDouble(number);
+        }
+        catch (NumberFormatException e)
+        {
+            index = start;
+
+            throw error("Invalid number");
+        }
+    }
+
+    private void skipWhitespace()
+    {
+        while (index < s.length() && Character.isWhitespace(s.charAt(index)))
+        {
+            index++;
+        }
+    }
+
+    private boolean consume(char c)
+    {
+        if (index < s.length() && s.charAt(index) == c)
+        {
+            index++;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expect(char c)
+    {
+        if (!consume(c))
+        {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message)
+    {
+        return new IllegalArgumentException(message + " at position " + index);
+    }
+
+}
@@ -0,0 +1,40 @@
+package io.github.thred.rwperf.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Ignores all bytes, to measure the transfers without any processing of the content.
+ */
+public class NoChecksum implements Checksum
+{
+
+    public NoChecksum()
+    {
+        super();
+    }
+
+    @Override
+    public String getAlgorithm()
+    {
+        return NONE;
+    }
+
+    @Override
+    public void update(byte[] buffer, int offset, int length)
+    {
+        // intentionally left blank
+    }
+
+    @Override
+    public void update(ByteBuffer buffer)
+    {
+        buffer.position(buffer.limit());
+    }
+
+    @Override
+    public String complete()
+    {
+        return "-";
+    }
+
+}
@@ -0,0 +1,52 @@
+package io.github.thred.rwperf.util;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * A cryptographic SHA-1 digest, encoded with Base64.
+ */
+public class Sha1Checksum implements Checksum
+{
+
+    private final MessageDigest digest;
+
+    public Sha1Checksum()
+    {
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new RuntimeException("O my god, they killed SHA-1!");
+        }
+    }
+
+    @Override
+    public String getAlgorithm()
+    {
+        return SHA1;
+    }
+
+    @Override
+    public void update(byte[] buffer, int offset, int length)
+    {
+        digest.update(buffer, offset, length);
+    }
+
+    @Override
+    public void update(ByteBuffer buffer)
+    {
+        digest.update(buffer);
+    }
+
+    @Override
+    public String complete()
+    {
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+}
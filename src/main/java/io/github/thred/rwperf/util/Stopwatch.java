@@ -1,25 +1,38 @@
-package io.github.thred.rwperf.util;
-
-public class Stopwatch
-{
-
-    public static Stopwatch start()
-    {
-        return new Stopwatch();
-    }
-
-    private final long nanos;
-
-    public Stopwatch()
-    {
-        super();
-
-        nanos = System.nanoTime();
-    }
-
-    public double stop()
-    {
-        return (System.nanoTime() - nanos) / 1000000000d;
-    }
-
-}
+package io.github.thred.rwperf.util;
+
+public class Stopwatch
+{
+
+    private static final long EPOCH_OFFSET = System.currentTimeMillis() * 1000000 - System.nanoTime();
+
+    public static Stopwatch start()
+    {
+        return new Stopwatch();
+    }
+
+    /**
+     * Returns the current time in nanoseconds since the epoch. The time has the precision of {@link System#nanoTime()},
+     * but unlike it, it can be compared between processes within the accuracy of the system clock.
+     *
+     * @return the time in nanoseconds
+     */
+    public static long epochNanos()
+    {
+        return System.nanoTime() + EPOCH_OFFSET;
+    }
+
+    private final long nanos;
+
+    public Stopwatch()
+    {
+        super();
+
+        nanos = System.nanoTime();
+    }
+
+    public double stop()
+    {
+        return (System.nanoTime() - nanos) / 1000000000d;
+    }
+
+}
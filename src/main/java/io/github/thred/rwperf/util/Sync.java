@@ -0,0 +1,144 @@
+package io.github.thred.rwperf.util;
+
+import java.io.IOException;
+
+/**
+ * Forces written data to the device. Depending on the mode, a write is forced when it completes and optionally every
+ * time the specified number of bytes has been written. Each force is timed and passed to the listener, the total time
+ * is accumulated, thus it can be reported separately from the time of the transfer.
+ *
+ * The sync is not thread-safe, it is created per transfer.
+ */
+public class Sync
+{
+
+    public static final String NONE = "none";
+    public static final String FDATASYNC = "fdatasync";
+    public static final String FSYNC = "fsync";
+
+    /**
+     * The file to force, e.g. {@link java.nio.channels.FileChannel#force(boolean)}.
+     */
+    public interface Target
+    {
+        void force(boolean metaData) throws IOException;
+    }
+
+    public interface Listener
+    {
+        /**
+         * Called after each force.
+         *
+         * @param size the number of bytes written since the last force
+         * @param nanos the duration of the force
+         */
+        void synced(long size, long nanos);
+    }
+
+    private final boolean enabled;
+    private final boolean metaData;
+    private final long every;
+    private final Listener listener;
+
+    private long pending = 0;
+    private long nanos = 0;
+
+    /**
+     * Creates a sync.
+     *
+     * @param mode none, fdatasync (data only) or fsync (data and metadata)
+     * @param every the number of bytes after which to force, 0 to force only on completion
+     * @param listener the listener
+     * @throws IllegalArgumentException if the mode is unknown or the combination is invalid
+     */
+    public Sync(String mode, long every, Listener listener)
+    {
+        super();
+
+        switch (mode)
+        {
+            case NONE:
+                enabled = false;
+                metaData = false;
+                break;
+
+            case FDATASYNC:
+                enabled = true;
+                metaData = false;
+                break;
+
+            case FSYNC:
+                enabled = true;
+                metaData = true;
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown sync mode: " + mode);
+        }
+
+        if (every < 0 || every > 0 && !enabled)
+        {
+            throw new IllegalArgumentException("Syncing every " + every + " bytes needs the fdatasync or fsync mode");
+        }
+
+        this.every = every;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds written bytes and forces the file if enough bytes have been written since the last force.
+     *
+     * @param target the file
+     * @param length the number of bytes written
+     * @throws IOException on I/O errors
+     */
+    public void update(Target target, long length) throws IOException
+    {
+        pending += length;
+
+        if (every > 0 && pending >= every)
+        {
+            force(target);
+        }
+    }
+
+    /**
+     * Forces the file, if enabled and if there are bytes written since the last force.
+     *
+     * @param target the file
+     * @throws IOException on I/O errors
+     */
+    public void complete(Target target) throws IOException
+    {
+        if (enabled && pending > 0)
+        {
+            force(target);
+        }
+    }
+
+    /**
+     * Returns the time spent forcing since the sync has been created.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getNanos()
+    {
+        return nanos;
+    }
+
+    private void force(Target target) throws IOException
+    {
+        long startNanos = System.nanoTime();
+
+        target.force(metaData);
+
+        long duration = System.nanoTime() - startNanos;
+
+        nanos += duration;
+
+        listener.synced(pending, duration);
+
+        pending = 0;
+    }
+
+}
@@ -0,0 +1,186 @@
+package io.github.thred.rwperf.util;
+
+/**
+ * Welch's t-test for two samples with possibly different variances. The p-value is calculated from the Student
+ * t-distribution by the means of the regularized incomplete beta function.
+ */
+public class WelchTest
+{
+
+    private static final int MAX_ITERATIONS = 300;
+    private static final double EPSILON = 1e-15;
+    private static final double MIN_VALUE = 1e-300;
+
+    private static final double[] LANCZOS = {0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+        771.32342877765313, -176.61502916214059, 12.507343278686905, -0.13857109526572012, 9.9843695780195716e-6,
+        1.5056327351493116e-7};
+
+    /**
+     * Returns true if the test can be applied, i.e. both samples have at least two values.
+     *
+     * @param a the first sample
+     * @param b the second sample
+     * @return true if applicable
+     */
+    public static boolean isApplicable(double[] a, double[] b)
+    {
+        return a.length >= 2 && b.length >= 2;
+    }
+
+    /**
+     * Returns the two-sided p-value of the hypothesis, that both samples have the same mean.
+     *
+     * @param a the first sample, at least two values
+     * @param b the second sample, at least two values
+     * @return the p-value, 0 to 1
+     * @throws IllegalArgumentException if a sample has less than two values
+     */
+    public static double pValue(double[] a, double[] b)
+    {
+        if (!isApplicable(a, b))
+        {
+            throw new IllegalArgumentException("The samples need at least two values each");
+        }
+
+        double varianceA = variance(a) / a.length;
+        double varianceB = variance(b) / b.length;
+        double error = varianceA + varianceB;
+        double difference = mean(a) - mean(b);
+
+        if (error == 0)
+        {
+            // both samples are constant
+            return difference == 0 ? 1 : 0;
+        }
+
+        double t = difference / Math.sqrt(error);
+        double degrees = error * error
+            / (varianceA * varianceA / (a.length - 1) + varianceB * varianceB / (b.length - 1));
+
+        return incompleteBeta(degrees / 2, 0.5, degrees / (degrees + t * t));
+    }
+
+    public static double mean(double[] values)
+    {
+        double sum = 0;
+
+        for (double value : values)
+        {
+            sum += value;
+        }
+
+        return sum / values.length;
+    }
+
+    /**
+     * Returns the sample variance.
+     *
+     * @param values the values, at least two
+     * @return the variance
+     */
+    public static double variance(double[] values)
+    {
+        double mean = mean(values);
+        double sum = 0;
+
+        for (double value : values)
+        {
+            sum += (value - mean) * (value - mean);
+        }
+
+        return sum / (values.length - 1);
+    }
+
+    /**
+     * The regularized incomplete beta function I_x(a, b).
+     */
+    static double incompleteBeta(double a, double b, double x)
+    {
+        if (x <= 0)
+        {
+            return 0;
+        }
+
+        if (x >= 1)
+        {
+            return 1;
+        }
+
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+
+        // the continued fraction converges quickly only below this point, use the symmetry above
+        if (x < (a + 1) / (a + b + 2))
+        {
+            return front * continuedFraction(a, b, x) / a;
+        }
+
+        return 1 - front * continuedFraction(b, a, 1 - x) / b;
+    }
+
+    /**
+     * Evaluates the continued fraction of the incomplete beta function by the modified Lentz's method.
+     */
+    private static double continuedFraction(double a, double b, double x)
+    {
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+
+        d = 1 / (Math.abs(d) < MIN_VALUE ? MIN_VALUE : d);
+
+        double result = d;
+
+        for (int m = 1; m <= MAX_ITERATIONS; m++)
+        {
+            int m2 = 2 * m;
+            double numerator = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+
+            d = 1 + numerator * d;
+            d = 1 / (Math.abs(d) < MIN_VALUE ? MIN_VALUE : d);
+            c = 1 + numerator / c;
+            c = Math.abs(c) < MIN_VALUE ? MIN_VALUE : c;
+            result *= d * c;
+
+            numerator = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+
+            d = 1 + numerator * d;
+            d = 1 / (Math.abs(d) < MIN_VALUE ? MIN_VALUE : d);
+            c = 1 + numerator / c;
+            c = Math.abs(c) < MIN_VALUE ? MIN_VALUE : c;
+
+            double delta = d * c;
+
+            result *= delta;
+
+            if (Math.abs(delta - 1) < EPSILON)
+            {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The logarithm of the gamma function by the Lanczos approximation.
+     */
+    static double logGamma(double x)
+    {
+        if (x < 0.5)
+        {
+            return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+        }
+
+        x -= 1;
+
+        double sum = LANCZOS[0];
+        double t = x + 7.5;
+
+        for (int i = 1; i < LANCZOS.length; i++)
+        {
+            sum += LANCZOS[i] / (x + i);
+        }
+
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(sum);
+    }
+
+}
@@ -0,0 +1,198 @@
+package io.github.thred.rwperf.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A streaming XXH64 hash with seed 0. Input is consumed in stripes of 32 bytes, a partial stripe is kept until the
+ * next update, thus no memory is allocated while hashing.
+ */
+public class XxHash64Checksum implements Checksum
+{
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE = 32;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static long round(long acc, long input)
+    {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+
+        return acc * PRIME1;
+    }
+
+    private static long merge(long acc, long value)
+    {
+        acc ^= round(0, value);
+
+        return acc * PRIME1 + PRIME4;
+    }
+
+    private final byte[] stripe = new byte[STRIPE];
+
+    private long v1 = PRIME1 + PRIME2;
+    private long v2 = PRIME2;
+    private long v3 = 0;
+    private long v4 = -PRIME1;
+    private long total = 0;
+    private int pending = 0;
+
+    public XxHash64Checksum()
+    {
+        super();
+    }
+
+    @Override
+    public String getAlgorithm()
+    {
+        return XXHASH64;
+    }
+
+    @Override
+    public void update(byte[] buffer, int offset, int length)
+    {
+        int end = offset + length;
+
+        total += length;
+
+        if (pending > 0)
+        {
+            int chunk = Math.min(STRIPE - pending, length);
+
+            System.arraycopy(buffer, offset, stripe, pending, chunk);
+
+            pending += chunk;
+            offset += chunk;
+
+            if (pending < STRIPE)
+            {
+                return;
+            }
+
+            consume(stripe, 0);
+            pending = 0;
+        }
+
+        while (offset + STRIPE <= end)
+        {
+            consume(buffer, offset);
+            offset += STRIPE;
+        }
+
+        System.arraycopy(buffer, offset, stripe, 0, end - offset);
+        pending = end - offset;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer)
+    {
+        if (buffer.hasArray())
+        {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+
+            return;
+        }
+
+        total += buffer.remaining();
+
+        while (buffer.hasRemaining())
+        {
+            if (pending == 0 && buffer.remaining() >= STRIPE)
+            {
+                int position = buffer.position();
+
+                v1 = round(v1, (long) BUFFER_LONGS.get(buffer, position));
+                v2 = round(v2, (long) BUFFER_LONGS.get(buffer, position + 8));
+                v3 = round(v3, (long) BUFFER_LONGS.get(buffer, position + 16));
+                v4 = round(v4, (long) BUFFER_LONGS.get(buffer, position + 24));
+
+                buffer.position(position + STRIPE);
+            }
+            else
+            {
+                int chunk = Math.min(STRIPE - pending, buffer.remaining());
+
+                buffer.get(stripe, pending, chunk);
+                pending += chunk;
+
+                if (pending == STRIPE)
+                {
+                    consume(stripe, 0);
+                    pending = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String complete()
+    {
+        long hash;
+
+        if (total >= STRIPE)
+        {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        }
+        else
+        {
+            hash = PRIME5;
+        }
+
+        hash += total;
+
+        int offset = 0;
+
+        for (; offset + 8 <= pending; offset += 8)
+        {
+            hash ^= round(0, (long) LONGS.get(stripe, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+
+        if (offset + 4 <= pending)
+        {
+            hash ^= ((int) INTS.get(stripe, offset) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            offset += 4;
+        }
+
+        for (; offset < pending; offset++)
+        {
+            hash ^= (stripe[offset] & 0xFF) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+
+        return String.format("%016x", hash);
+    }
+
+    private void consume(byte[] buffer, int offset)
+    {
+        v1 = round(v1, (long) LONGS.get(buffer, offset));
+        v2 = round(v2, (long) LONGS.get(buffer, offset + 8));
+        v3 = round(v3, (long) LONGS.get(buffer, offset + 16));
+        v4 = round(v4, (long) LONGS.get(buffer, offset + 24));
+    }
+
+}